@@ -0,0 +1,341 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AabbTree class is a broad phase that keeps collidables in a dynamic bounding volume hierarchy.
+ * Every leaf holds a collidable with a slightly enlarged ("fat") box, so small movements such as the
+ * paddle sliding a few pixels do not require the tree to be restructured.
+ * It works well for collidables of mixed sizes and for boards with a lot of empty space.
+ * <p>
+ * A new leaf goes next to the node where it adds the least to the total perimeter of the tree, and on the way
+ * back up every node is rebalanced with an AVL rotation when the heights of its children differ by more than
+ * one. The tree therefore stays about log2(n) deep whatever the order the collidables come in, such as the
+ * row by row order of a board, which would otherwise grow it into a long chain.
+ */
+public class AabbTree implements BroadPhase {
+
+    private static final double DEFAULT_MARGIN = 8;
+
+    private final double margin;
+    private final Map<Collidable, Node> leaves = new IdentityHashMap<>();
+    private Node[] stack = new Node[64];
+    private Node root;
+
+    /**
+     * Constructs an empty tree with the default leaf margin.
+     */
+    public AabbTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructs an empty tree with the specified leaf margin.
+     *
+     * @param margin how far each leaf box is enlarged beyond the collision rectangle
+     */
+    public AabbTree(double margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("margin must not be negative: " + margin);
+        }
+        this.margin = margin;
+    }
+
+    /**
+     * Adds a collidable as a new leaf of the tree.
+     *
+     * @param c the collidable to be added
+     */
+    public void insert(Collidable c) {
+        if (leaves.containsKey(c)) {
+            update(c);
+            return;
+        }
+        Node leaf = new Node();
+        leaf.collidable = c;
+        fitLeaf(leaf, c.getCollisionRectangle());
+        leaves.put(c, leaf);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Removes the leaf of a collidable from the tree.
+     *
+     * @param c the collidable to be removed
+     */
+    public void remove(Collidable c) {
+        Node leaf = leaves.remove(c);
+        if (leaf != null) {
+            removeLeaf(leaf);
+        }
+    }
+
+    /**
+     * Re-inserts a collidable if its collision rectangle left the fat box of its leaf.
+     *
+     * @param c the collidable that moved
+     */
+    public void update(Collidable c) {
+        Node leaf = leaves.get(c);
+        if (leaf == null) {
+            insert(c);
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        if (rect.getTopX() >= leaf.minX && rect.getTopY() >= leaf.minY
+                && rect.getBottomX() <= leaf.maxX && rect.getBottomY() <= leaf.maxY) {
+            return;
+        }
+        removeLeaf(leaf);
+        fitLeaf(leaf, rect);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Collects the collidables whose leaf boxes overlap the given box.
+     *
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param out  the list to which the candidates are added
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<Collidable> out) {
+        if (root == null) {
+            return;
+        }
+        // The stack never holds more than one node per level, plus the sibling of the deepest.
+        if (stack.length < root.height + 2) {
+            stack = Arrays.copyOf(stack, root.height + 2);
+        }
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            Node node = stack[--top];
+            if (node.maxX < minX || node.minX > maxX || node.maxY < minY || node.minY > maxY) {
+                continue;
+            }
+            if (node.isLeaf()) {
+                out.add(node.collidable);
+            } else {
+                stack[top++] = node.left;
+                stack[top++] = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of collidables in the tree.
+     *
+     * @return the number of collidables in the tree
+     */
+    public int size() {
+        return leaves.size();
+    }
+
+    /**
+     * Gets the height of the tree: the number of inner nodes on the longest path from the root to a leaf.
+     *
+     * @return the height of the tree, 0 if it holds at most one collidable
+     */
+    public int getHeight() {
+        return root == null ? 0 : root.height;
+    }
+
+    private void fitLeaf(Node leaf, Rectangle rect) {
+        leaf.minX = rect.getTopX() - margin;
+        leaf.minY = rect.getTopY() - margin;
+        leaf.maxX = rect.getBottomX() + margin;
+        leaf.maxY = rect.getBottomY() + margin;
+    }
+
+    private void insertLeaf(Node leaf) {
+        if (root == null) {
+            root = leaf;
+            leaf.parent = null;
+            return;
+        }
+        // Walk down while it is cheaper to pair the leaf with a node further down than with this one. Pairing
+        // it with a node costs the perimeter of their box, and every node above grows to take the leaf in.
+        Node sibling = root;
+        while (!sibling.isLeaf()) {
+            double combined = Node.perimeter(sibling, leaf);
+            double cost = 2 * combined;
+            double inheritanceCost = 2 * (combined - sibling.perimeter());
+            double leftCost = descentCost(sibling.left, leaf) + inheritanceCost;
+            double rightCost = descentCost(sibling.right, leaf) + inheritanceCost;
+            if (cost < leftCost && cost < rightCost) {
+                break;
+            }
+            sibling = leftCost <= rightCost ? sibling.left : sibling.right;
+        }
+
+        Node oldParent = sibling.parent;
+        Node newParent = new Node();
+        newParent.parent = oldParent;
+        newParent.left = sibling;
+        newParent.right = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+        if (oldParent == null) {
+            root = newParent;
+        } else if (oldParent.left == sibling) {
+            oldParent.left = newParent;
+        } else {
+            oldParent.right = newParent;
+        }
+        rebalance(newParent);
+    }
+
+    /**
+     * Gets the cost of descending into a child to place a leaf below it, not counting the growth of the
+     * nodes above the child.
+     *
+     * @param child the child
+     * @param leaf  the leaf being placed
+     * @return the perimeter of the box pairing the leaf with a leaf child, or how much an inner child grows
+     */
+    private static double descentCost(Node child, Node leaf) {
+        double combined = Node.perimeter(child, leaf);
+        return child.isLeaf() ? combined : combined - child.perimeter();
+    }
+
+    private void removeLeaf(Node leaf) {
+        if (leaf == root) {
+            root = null;
+            return;
+        }
+        Node parent = leaf.parent;
+        Node grandParent = parent.parent;
+        Node sibling = parent.left == leaf ? parent.right : parent.left;
+        sibling.parent = grandParent;
+        if (grandParent == null) {
+            root = sibling;
+        } else {
+            if (grandParent.left == parent) {
+                grandParent.left = sibling;
+            } else {
+                grandParent.right = sibling;
+            }
+            rebalance(grandParent);
+        }
+        leaf.parent = null;
+    }
+
+    /**
+     * Walks from a node up to the root, rotating every unbalanced node and refitting the boxes and heights.
+     *
+     * @param node the lowest node whose children changed
+     */
+    private void rebalance(Node node) {
+        while (node != null) {
+            node = balance(node);
+            node.fit();
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Rotates the taller child of an inner node up into its place if the heights of its children differ by
+     * more than one, as in an AVL tree. Of the children of the taller child, the taller stays below it and the
+     * other moves down to the node.
+     *
+     * @param a the node
+     * @return the node now in the place of the given one
+     */
+    private Node balance(Node a) {
+        // The heights of the children are up to date, the one of the node itself may not be yet.
+        if (a.isLeaf()) {
+            return a;
+        }
+        Node b = a.left;
+        Node c = a.right;
+        int balance = c.height - b.height;
+        if (balance > 1) {
+            Node f = c.left;
+            Node g = c.right;
+            replaceChild(a, c);
+            c.left = a;
+            a.parent = c;
+            Node down = f.height > g.height ? g : f;
+            c.right = down == g ? f : g;
+            a.right = down;
+            down.parent = a;
+            a.fit();
+            c.fit();
+            return c;
+        }
+        if (balance < -1) {
+            Node d = b.left;
+            Node e = b.right;
+            replaceChild(a, b);
+            b.left = a;
+            a.parent = b;
+            Node down = d.height > e.height ? e : d;
+            b.right = down == e ? d : e;
+            a.left = down;
+            down.parent = a;
+            a.fit();
+            b.fit();
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Puts a child of a node in the place of the node under the node's parent, or at the root.
+     *
+     * @param node  the node
+     * @param child the child taking its place
+     */
+    private void replaceChild(Node node, Node child) {
+        Node parent = node.parent;
+        child.parent = parent;
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == node) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+    }
+
+    /**
+     * A node of the tree. Leaves hold a collidable, inner nodes hold exactly two children.
+     */
+    private static final class Node {
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private Node parent;
+        private Node left;
+        private Node right;
+        private Collidable collidable;
+        // The number of inner nodes on the longest path down to a leaf, 0 for a leaf.
+        private int height;
+
+        boolean isLeaf() {
+            return left == null;
+        }
+
+        void fit() {
+            minX = Math.min(left.minX, right.minX);
+            minY = Math.min(left.minY, right.minY);
+            maxX = Math.max(left.maxX, right.maxX);
+            maxY = Math.max(left.maxY, right.maxY);
+            height = 1 + Math.max(left.height, right.height);
+        }
+
+        double perimeter() {
+            return 2 * ((maxX - minX) + (maxY - minY));
+        }
+
+        static double perimeter(Node a, Node b) {
+            double width = Math.max(a.maxX, b.maxX) - Math.min(a.minX, b.minX);
+            double height = Math.max(a.maxY, b.maxY) - Math.min(a.minY, b.minY);
+            return 2 * (width + height);
+        }
+    }
+}
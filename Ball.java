@@ -9,13 +9,23 @@
 import biuoop.DrawSurface;
 import java.util.Random;
 
-public class Ball implements Sprite {
+public class Ball implements MovingSprite {
 
     private Point center;
     private int radius;
     private java.awt.Color color;
-    public Velocity velocity;
+    // Changed in place by every bounce, so the ball never allocates a new velocity.
+    public Velocity velocity = new Velocity(0, 0);
     private GameEnvironment gameEnvironment;
+    // Reused by every step, so moving the ball does not allocate a new CollisionInfo or trajectory.
+    private final CollisionInfo collision = new CollisionInfo();
+    private final Line trajectory = new Line(new Point(0, 0), new Point(0, 0));
+    private final SweepHit sweep = new SweepHit();
+    private final Point contact = new Point(0, 0);
+    // Receives the velocity a collidable answers with during a continuous step, before it is reflected.
+    private final Velocity bounce = new Velocity(0, 0);
+    // The most bounces a step may take with continuous collision detection, or 0 to cast the trajectory line.
+    private int maxBounces;
 
     /**
      * Constructs a new Ball object with the specified center, radius, and color.
@@ -26,7 +36,8 @@ public class Ball implements Sprite {
      * @param gameEnvironment  the game environment in which the ball exists
      */
     public Ball(Point center, int radius, java.awt.Color color, GameEnvironment gameEnvironment) {
-        this.center = center;
+        // The center is moved in place, so keep a copy rather than the caller's point.
+        this.center = new Point(center.getX(), center.getY());
         this.radius = radius;
         this.color = color;
         this.gameEnvironment = gameEnvironment;
@@ -67,6 +78,43 @@ public class Ball implements Sprite {
         return (int) this.center.getY();
     }
 
+    /**
+     * Gets the exact x-coordinate of the center of the ball.
+     *
+     * @return the x-coordinate of the center
+     */
+    public double getCenterX() {
+        return this.center.getX();
+    }
+
+    /**
+     * Gets the exact y-coordinate of the center of the ball.
+     *
+     * @return the y-coordinate of the center
+     */
+    public double getCenterY() {
+        return this.center.getY();
+    }
+
+    /**
+     * Gets the exact center of the ball.
+     *
+     * @return a copy of the center of the ball
+     */
+    public Point getCenter() {
+        return new Point(this.center.getX(), this.center.getY());
+    }
+
+    /**
+     * Moves the center of the ball to the given coordinates.
+     *
+     * @param x the new x-coordinate of the center
+     * @param y the new y-coordinate of the center
+     */
+    public void setCenter(double x, double y) {
+        this.center.setLocation(x, y);
+    }
+
     /**
      * Gets the size (radius) of the ball.
      *
@@ -104,12 +152,36 @@ public class Ball implements Sprite {
     }
 
     /**
-     * Sets the velocity of the ball to the specified Velocity object.
+     * Draws the ball on the given DrawSurface, moved part of the way along its velocity.
+     *
+     * @param surface the DrawSurface on which to draw the ball
+     * @param alpha   how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    public void drawOn(DrawSurface surface, double alpha) {
+        surface.setColor(this.getColor());
+        surface.fillCircle((int) (this.center.getX() + this.velocity.dx * alpha),
+                (int) (this.center.getY() + this.velocity.dy * alpha), this.getSize());
+    }
+
+    /**
+     * Adds the box around the ball, as drawn by drawOn(surface, alpha), to the given regions.
+     *
+     * @param regions the regions to add the box to
+     * @param alpha   how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    public void addDrawnArea(DirtyRegions regions, double alpha) {
+        regions.addCircle((int) (this.center.getX() + this.velocity.dx * alpha),
+                (int) (this.center.getY() + this.velocity.dy * alpha), this.getSize());
+    }
+
+    /**
+     * Sets the velocity of the ball to that of the specified Velocity object.
+     * The ball changes its velocity in place, so it copies the given one rather than keeping it.
      *
      * @param v the new velocity of the ball
      */
     public void setVelocity(Velocity v) {
-        this.velocity = v;
+        this.velocity.set(v.dx, v.dy);
     }
 
     /**
@@ -119,12 +191,11 @@ public class Ball implements Sprite {
      * @param dy the change in y-coordinate per step
      */
     public void setVelocity(double dx, double dy) {
-        Velocity newVelocity = new Velocity(dx, dy);
-        this.velocity = newVelocity;
+        this.velocity.set(dx, dy);
     }
 
     /**
-     * Gets the current velocity of the ball.
+     * Gets the current velocity of the ball. The ball changes the returned velocity in place as it bounces.
      *
      * @return the velocity of the ball
      */
@@ -159,7 +230,7 @@ public class Ball implements Sprite {
         }
 
         // Update the center based on the adjusted position
-        this.center = new Point(nextX, nextY);
+        this.center.setLocation(nextX, nextY);
     }
 
     /**
@@ -183,7 +254,7 @@ public class Ball implements Sprite {
         }
 
         // Update the center based on the adjusted position
-        this.center = velocity.applyToPoint(this.center);
+        velocity.applyTo(this.center);
     }
 
     /**
@@ -270,37 +341,109 @@ public class Ball implements Sprite {
      * Moves the ball one step, handling collisions with objects in the game environment.
      */
     public void moveOneStep() {
-        Line trajectory = calculateTrajectory();
-        // If there is a point of collision close
-        if (gameEnvironment.getClosestCollision(trajectory, this) != null) {
-            // Get the collision object
-            CollisionInfo collidable = gameEnvironment.getClosestCollision(trajectory, this);
+        calculateTrajectory(trajectory);
+        // If there is a point of collision close, get the collision object
+        if (gameEnvironment.findClosestCollision(trajectory, this, collision)) {
+            CollisionInfo collidable = collision;
             // only commit a collision when the ball is close
             double distance = this.center.distance(collidable.collisionPoint());
             if (Math.abs(distance) < radius) {
                 // go to the object and use hit to calculate velocity.
-                this.velocity = collidable.collisionObject().hit(collidable.collisionPoint(), this.velocity);
+                collidable.collisionObject().hit(collidable.collisionPoint(), this.velocity, this.velocity);
             }
         }
-        this.center = velocity.applyToPoint(this.center);
+        velocity.applyTo(this.center);
+    }
+
+    /**
+     * Turns continuous collision detection on or off. With it on, every step sweeps the whole ball along its
+     * velocity and bounces at the exact time of impact, up to the given number of times per step, so fast
+     * balls cannot pass through thin blocks.
+     *
+     * @param bounces the most bounces a single step may take, or 0 to use the trajectory line instead
+     */
+    public void setContinuousCollision(int bounces) {
+        this.maxBounces = bounces;
+    }
+
+    /**
+     * Moves the ball one step with continuous collision detection.
+     * The ball moves to the exact time of impact, the collidable decides the new velocity, and the ball
+     * continues with the rest of the step. If the velocity returned by the collidable still points into
+     * its surface, the ball is reflected about the surface normal instead.
+     * When the step runs out of bounces the ball stays at its last contact point.
+     *
+     * @param bounces the most bounces the step may take
+     */
+    public void moveContinuous(int bounces) {
+        double remaining = 1;
+        for (int i = 0; i < bounces; i++) {
+            if (!gameEnvironment.sweepCircle(this.center.getX(), this.center.getY(), this.radius,
+                    velocity.dx, velocity.dy, remaining, sweep)) {
+                this.center.setLocation(this.center.getX() + velocity.dx * remaining,
+                        this.center.getY() + velocity.dy * remaining);
+                return;
+            }
+            double t = sweep.time();
+            this.center.setLocation(this.center.getX() + velocity.dx * t, this.center.getY() + velocity.dy * t);
+            remaining -= t;
+
+            contact.setLocation(sweep.contactX(), sweep.contactY());
+            sweep.collidable().hit(contact, this.velocity, bounce);
+            double nx = sweep.normalX();
+            double ny = sweep.normalY();
+            double into = bounce.dx * nx + bounce.dy * ny;
+            if (into < 0) {
+                velocity.set(bounce.dx - 2 * into * nx, bounce.dy - 2 * into * ny);
+            } else {
+                velocity.set(bounce.dx, bounce.dy);
+            }
+        }
+    }
+
+    /**
+     * Gets the arena the temporaries of the ball come from, the one of its environment.
+     *
+     * @return the arena, or null if the temporaries are allocated
+     */
+    FrameArena getFrameArena() {
+        return this.gameEnvironment == null ? null : this.gameEnvironment.getFrameArena();
     }
 
     /**
      * Calculates the trajectory of the ball.
+     * When the environment of the ball has a frame arena, the line is only valid for this tick.
      *
      * @return the trajectory of the ball as a Line object
      */
     public Line calculateTrajectory() {
+        FrameArena arena = getFrameArena();
+        if (arena != null) {
+            return arena.line(this.getX(), this.getY(), this.getX() + velocity.dx, this.getY() + velocity.dy);
+        }
         Point start = new Point(this.getX(), this.getY());
         Point end = velocity.applyToPoint(start);
         return new Line(start, end);
     }
 
+    /**
+     * Calculates the trajectory of the ball into an existing line instead of creating a new one.
+     *
+     * @param out the line that receives the trajectory, it must own its start and end points
+     */
+    public void calculateTrajectory(Line out) {
+        out.set(this.getX(), this.getY(), this.getX() + velocity.dx, this.getY() + velocity.dy);
+    }
+
     /**
      * Updates the state of the ball based on the passage of time.
      */
     public void timePassed() {
-        moveOneStep();
+        if (maxBounces > 0) {
+            moveContinuous(maxBounces);
+        } else {
+            moveOneStep();
+        }
     }
 
     /**
@@ -0,0 +1,108 @@
+import biuoop.DrawSurface;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The BallCollider class makes Ball objects bounce off each other. It is a sprite that does not draw
+ * anything: added to a game after the balls, it resolves the collisions between them once per tick,
+ * after they have moved. The positions and velocities of the balls are gathered into arrays for a
+ * SweepAndPrune, and the velocities that changed are written back.
+ */
+public class BallCollider implements Sprite {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Ball> balls = new ArrayList<>();
+    private final SweepAndPrune sweep = new SweepAndPrune();
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] dx = new double[INITIAL_CAPACITY];
+    private double[] dy = new double[INITIAL_CAPACITY];
+    private int[] radius = new int[INITIAL_CAPACITY];
+
+    /**
+     * Adds a ball to the balls that collide with each other.
+     *
+     * @param ball the ball to be added
+     */
+    public void addBall(Ball ball) {
+        balls.add(ball);
+    }
+
+    /**
+     * Removes a ball from the balls that collide with each other.
+     *
+     * @param ball the ball to be removed
+     */
+    public void removeBall(Ball ball) {
+        int index = balls.indexOf(ball);
+        if (index >= 0) {
+            // Swap-remove, the sweep and prune picks up the moved index on the next tick.
+            balls.set(index, balls.get(balls.size() - 1));
+            balls.remove(balls.size() - 1);
+        }
+    }
+
+    /**
+     * Bounces the overlapping balls off each other.
+     *
+     * @return the number of pairs that bounced
+     */
+    public int resolveCollisions() {
+        int n = balls.size();
+        if (x.length < n) {
+            int capacity = Math.max(n, 2 * x.length);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            dx = Arrays.copyOf(dx, capacity);
+            dy = Arrays.copyOf(dy, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+        }
+        for (int i = 0; i < n; i++) {
+            Ball ball = balls.get(i);
+            x[i] = ball.getCenterX();
+            y[i] = ball.getCenterY();
+            dx[i] = ball.velocity.dx;
+            dy[i] = ball.velocity.dy;
+            radius[i] = ball.getSize();
+        }
+        int bounced = sweep.collide(n, x, y, dx, dy, radius);
+        if (bounced > 0) {
+            for (int i = 0; i < n; i++) {
+                Ball ball = balls.get(i);
+                if (dx[i] != ball.velocity.dx || dy[i] != ball.velocity.dy) {
+                    ball.setVelocity(dx[i], dy[i]);
+                }
+            }
+        }
+        return bounced;
+    }
+
+    /**
+     * Resolves the collisions between the balls for this tick.
+     */
+    @Override
+    public void timePassed() {
+        resolveCollisions();
+    }
+
+    /**
+     * Draws nothing, the balls draw themselves.
+     *
+     * @param d the DrawSurface
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+    }
+
+    /**
+     * Adds the collider to the specified game. It must be added after the balls, so it sees where they moved.
+     *
+     * @param game the game to which the collider will be added
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+}
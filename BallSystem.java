@@ -0,0 +1,465 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BallSystem class simulates many balls at once, keeping their state in parallel arrays
+ * instead of one Ball object per ball. A ball is identified by its index in the system.
+ * The whole system is a single sprite, so every frame makes one call for all of its balls and
+ * walks the arrays in order, which keeps memory access linear even with a very large number of balls.
+ * A ball in the system reacts to collidables exactly like a Ball does.
+ * The balls can optionally be stepped in parallel on a ForkJoinPool, see setPool,
+ * and can optionally bounce off each other, see setBallCollisions.
+ * Like a Ball, the system can sweep its balls with continuous collision detection, see setContinuousCollision.
+ */
+public class BallSystem implements MovingSprite {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // Below this many balls a parallel task does its work directly instead of splitting further.
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final GameEnvironment gameEnvironment;
+    private int count;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] dx = new double[INITIAL_CAPACITY];
+    private double[] dy = new double[INITIAL_CAPACITY];
+    private int[] radius = new int[INITIAL_CAPACITY];
+    private Color[] color = new Color[INITIAL_CAPACITY];
+    // Results of the parallel collision phase: the snapshot number of the collidable hit, or -1, and where.
+    private int[] hitIndex = new int[INITIAL_CAPACITY];
+    private double[] hitX = new double[INITIAL_CAPACITY];
+    private double[] hitY = new double[INITIAL_CAPACITY];
+    private ForkJoinPool pool;
+    // Finds and resolves collisions between the balls, or null if the balls pass through each other.
+    private SweepAndPrune ballCollisions;
+    // The most bounces a step may take with continuous collision detection, or 0 to cast the trajectory line.
+    private int maxBounces;
+
+    // Scratch objects for talking to the game environment and the collidables.
+    private final Line trajectory = new Line(new Point(0, 0), new Point(0, 0));
+    private final CollisionInfo collision = new CollisionInfo();
+    private final Velocity velocity = new Velocity(0, 0);
+    private final Point hitPoint = new Point(0, 0);
+    private final SweepHit sweep = new SweepHit();
+    private final Velocity bounce = new Velocity(0, 0);
+
+    /**
+     * Constructs an empty ball system whose balls collide with the objects of the given game environment.
+     *
+     * @param gameEnvironment the game environment in which the balls exist
+     */
+    public BallSystem(GameEnvironment gameEnvironment) {
+        this.gameEnvironment = gameEnvironment;
+    }
+
+    /**
+     * Adds a ball to the system.
+     *
+     * @param centerX   the x-coordinate of the center of the ball
+     * @param centerY   the y-coordinate of the center of the ball
+     * @param size      the radius of the ball
+     * @param ballColor the color of the ball
+     * @param v         the initial velocity of the ball
+     * @return the index of the new ball
+     */
+    public int addBall(double centerX, double centerY, int size, Color ballColor, Velocity v) {
+        if (count == x.length) {
+            grow();
+        }
+        int index = count++;
+        x[index] = centerX;
+        y[index] = centerY;
+        dx[index] = v.dx;
+        dy[index] = v.dy;
+        radius[index] = size;
+        color[index] = ballColor;
+        return index;
+    }
+
+    /**
+     * Removes a ball from the system. The last ball is moved into the freed index,
+     * so the index of the last ball changes to the removed one.
+     *
+     * @param index the index of the ball to be removed
+     */
+    public void removeBall(int index) {
+        checkIndex(index);
+        int last = --count;
+        x[index] = x[last];
+        y[index] = y[last];
+        dx[index] = dx[last];
+        dy[index] = dy[last];
+        radius[index] = radius[last];
+        color[index] = color[last];
+        color[last] = null;
+    }
+
+    /**
+     * Returns the number of balls in the system.
+     *
+     * @return the number of balls
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the x-coordinate of the center of a ball.
+     *
+     * @param index the index of the ball
+     * @return the x-coordinate of the center
+     */
+    public double getX(int index) {
+        checkIndex(index);
+        return x[index];
+    }
+
+    /**
+     * Gets the y-coordinate of the center of a ball.
+     *
+     * @param index the index of the ball
+     * @return the y-coordinate of the center
+     */
+    public double getY(int index) {
+        checkIndex(index);
+        return y[index];
+    }
+
+    /**
+     * Gets the radius of a ball.
+     *
+     * @param index the index of the ball
+     * @return the radius of the ball
+     */
+    public int getSize(int index) {
+        checkIndex(index);
+        return radius[index];
+    }
+
+    /**
+     * Gets the change in x-coordinate per step of a ball.
+     *
+     * @param index the index of the ball
+     * @return the dx value of the velocity of the ball
+     */
+    public double getDx(int index) {
+        checkIndex(index);
+        return dx[index];
+    }
+
+    /**
+     * Gets the change in y-coordinate per step of a ball.
+     *
+     * @param index the index of the ball
+     * @return the dy value of the velocity of the ball
+     */
+    public double getDy(int index) {
+        checkIndex(index);
+        return dy[index];
+    }
+
+    /**
+     * Gets the velocity of a ball as a new Velocity object.
+     *
+     * @param index the index of the ball
+     * @return the velocity of the ball
+     */
+    public Velocity getVelocity(int index) {
+        checkIndex(index);
+        return new Velocity(dx[index], dy[index]);
+    }
+
+    /**
+     * Moves the center of a ball to the given coordinates.
+     *
+     * @param index the index of the ball
+     * @param newX  the new x-coordinate of the center
+     * @param newY  the new y-coordinate of the center
+     */
+    public void setPosition(int index, double newX, double newY) {
+        checkIndex(index);
+        x[index] = newX;
+        y[index] = newY;
+    }
+
+    /**
+     * Sets the velocity of a ball.
+     *
+     * @param index the index of the ball
+     * @param newDx the change in x-coordinate per step
+     * @param newDy the change in y-coordinate per step
+     */
+    public void setVelocity(int index, double newDx, double newDy) {
+        checkIndex(index);
+        dx[index] = newDx;
+        dy[index] = newDy;
+    }
+
+    /**
+     * Sets whether the balls bounce off each other. Collisions between balls are resolved after
+     * the balls have moved, once per tick.
+     *
+     * @param enabled true to make the balls collide with each other, false to let them pass through
+     */
+    public void setBallCollisions(boolean enabled) {
+        if (!enabled) {
+            this.ballCollisions = null;
+        } else if (this.ballCollisions == null) {
+            this.ballCollisions = new SweepAndPrune();
+        }
+    }
+
+    /**
+     * Turns continuous collision detection on or off for every ball, the way Ball.setContinuousCollision does.
+     * Every bounce of a sweep depends on the collidable hit before it, so with it on the balls are stepped on
+     * the calling thread even when a pool is set.
+     *
+     * @param bounces the most bounces a single step may take, or 0 to use the trajectory line instead
+     */
+    public void setContinuousCollision(int bounces) {
+        this.maxBounces = bounces;
+    }
+
+    /**
+     * Sets the pool used to step the balls in parallel, or null to step them on the calling thread.
+     *
+     * @param forkJoinPool the pool to run the parallel phases on, or null
+     */
+    public void setPool(ForkJoinPool forkJoinPool) {
+        this.pool = forkJoinPool;
+    }
+
+    /**
+     * Moves every ball one step. Collisions are resolved for all balls first, then all positions are
+     * advanced in a separate loop that only touches the position and velocity arrays.
+     * With continuous collision detection on, every ball is swept and moved on its own instead.
+     * Finally, if ball collisions are on, balls that now overlap bounce off each other.
+     */
+    public void timePassed() {
+        if (maxBounces > 0) {
+            for (int i = 0; i < count; i++) {
+                moveContinuous(i);
+            }
+        } else if (pool != null) {
+            parallelTimePassed();
+        } else {
+            for (int i = 0; i < count; i++) {
+                resolveCollision(i);
+            }
+            for (int i = 0; i < count; i++) {
+                x[i] += dx[i];
+                y[i] += dy[i];
+            }
+        }
+        if (ballCollisions != null) {
+            ballCollisions.collide(count, x, y, dx, dy, radius);
+        }
+    }
+
+    /**
+     * Draws every ball on the given DrawSurface.
+     *
+     * @param d the DrawSurface on which to draw the balls
+     */
+    public void drawOn(DrawSurface d) {
+        for (int i = 0; i < count; i++) {
+            d.setColor(color[i]);
+            d.fillCircle((int) x[i], (int) y[i], radius[i]);
+        }
+    }
+
+    /**
+     * Draws every ball on the given DrawSurface, moved part of the way along its velocity.
+     *
+     * @param d     the DrawSurface on which to draw the balls
+     * @param alpha how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    public void drawOn(DrawSurface d, double alpha) {
+        for (int i = 0; i < count; i++) {
+            d.setColor(color[i]);
+            d.fillCircle((int) (x[i] + dx[i] * alpha), (int) (y[i] + dy[i] * alpha), radius[i]);
+        }
+    }
+
+    /**
+     * Adds the box around every ball, as drawn by drawOn(d, alpha), to the given regions.
+     *
+     * @param regions the regions to add the boxes to
+     * @param alpha   how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    public void addDrawnArea(DirtyRegions regions, double alpha) {
+        for (int i = 0; i < count; i++) {
+            regions.addCircle((int) (x[i] + dx[i] * alpha), (int) (y[i] + dy[i] * alpha), radius[i]);
+        }
+    }
+
+    /**
+     * Adds the ball system to the specified game as a single sprite.
+     *
+     * @param game the game to which the ball system will be added
+     */
+    public void addToGame(Game game) {
+        game.addSprite(this);
+    }
+
+    /**
+     * Looks for a collision on the trajectory of a ball and updates its velocity the way Ball.moveOneStep does.
+     *
+     * @param i the index of the ball
+     */
+    private void resolveCollision(int i) {
+        int startX = (int) x[i];
+        int startY = (int) y[i];
+        trajectory.set(startX, startY, startX + dx[i], startY + dy[i]);
+        if (!gameEnvironment.findClosestCollision(trajectory, dx[i], dy[i], radius[i], collision)) {
+            return;
+        }
+        Point point = collision.collisionPoint();
+        // only commit a collision when the ball is close
+        if (point.distance(x[i], y[i]) < radius[i]) {
+            velocity.set(dx[i], dy[i]);
+            collision.collisionObject().hit(point, velocity, velocity);
+            dx[i] = velocity.dx;
+            dy[i] = velocity.dy;
+        }
+    }
+
+    /**
+     * Moves a ball one step with continuous collision detection, the way Ball.moveContinuous does.
+     *
+     * @param i the index of the ball
+     */
+    private void moveContinuous(int i) {
+        double remaining = 1;
+        for (int b = 0; b < maxBounces; b++) {
+            if (!gameEnvironment.sweepCircle(x[i], y[i], radius[i], dx[i], dy[i], remaining, sweep)) {
+                x[i] += dx[i] * remaining;
+                y[i] += dy[i] * remaining;
+                return;
+            }
+            double t = sweep.time();
+            x[i] += dx[i] * t;
+            y[i] += dy[i] * t;
+            remaining -= t;
+
+            hitPoint.setLocation(sweep.contactX(), sweep.contactY());
+            velocity.set(dx[i], dy[i]);
+            sweep.collidable().hit(hitPoint, velocity, bounce);
+            double nx = sweep.normalX();
+            double ny = sweep.normalY();
+            double into = bounce.dx * nx + bounce.dy * ny;
+            if (into < 0) {
+                dx[i] = bounce.dx - 2 * into * nx;
+                dy[i] = bounce.dy - 2 * into * ny;
+            } else {
+                dx[i] = bounce.dx;
+                dy[i] = bounce.dy;
+            }
+        }
+    }
+
+    /**
+     * Moves every ball one step using the pool, in three phases:
+     * the collision queries run in parallel against a read-only snapshot of the collidables,
+     * then the hits are applied on the calling thread in ball order, so collidables are notified in the
+     * same order on every run, and finally the positions are advanced in parallel.
+     */
+    private void parallelTimePassed() {
+        CollidableSnapshot snapshot = gameEnvironment.snapshot();
+        pool.invoke(new Step(snapshot, 0, count, true));
+        for (int i = 0; i < count; i++) {
+            if (hitIndex[i] < 0) {
+                continue;
+            }
+            hitPoint.setLocation(hitX[i], hitY[i]);
+            velocity.set(dx[i], dy[i]);
+            snapshot.get(hitIndex[i]).hit(hitPoint, velocity, velocity);
+            dx[i] = velocity.dx;
+            dy[i] = velocity.dy;
+        }
+        pool.invoke(new Step(snapshot, 0, count, false));
+    }
+
+    /**
+     * Finds the collision of every ball in a range without changing any ball or collidable.
+     *
+     * @param snapshot the collidables to search
+     * @param from     the index of the first ball in the range
+     * @param to       the index after the last ball in the range
+     */
+    private void findCollisions(CollidableSnapshot snapshot, int from, int to) {
+        Line localTrajectory = new Line(new Point(0, 0), new Point(0, 0));
+        Point hit = new Point(0, 0);
+        for (int i = from; i < to; i++) {
+            int startX = (int) x[i];
+            int startY = (int) y[i];
+            localTrajectory.set(startX, startY, startX + dx[i], startY + dy[i]);
+            int index = snapshot.findClosestCollision(localTrajectory, dx[i], dy[i], radius[i], hit);
+            // only commit a collision when the ball is close
+            if (index >= 0 && hit.distance(x[i], y[i]) < radius[i]) {
+                hitIndex[i] = index;
+                hitX[i] = hit.getX();
+                hitY[i] = hit.getY();
+            } else {
+                hitIndex[i] = -1;
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("no ball at index " + index + ", size is " + count);
+        }
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        color = Arrays.copyOf(color, capacity);
+        hitIndex = Arrays.copyOf(hitIndex, capacity);
+        hitX = Arrays.copyOf(hitX, capacity);
+        hitY = Arrays.copyOf(hitY, capacity);
+    }
+
+    /**
+     * A parallel phase over a range of balls, split in halves until the range is small enough.
+     */
+    private final class Step extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CollidableSnapshot snapshot;
+        private final int from;
+        private final int to;
+        private final boolean collide;
+
+        Step(CollidableSnapshot snapshot, int from, int to, boolean collide) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+            this.collide = collide;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Step(snapshot, from, middle, collide), new Step(snapshot, middle, to, collide));
+            } else if (collide) {
+                findCollisions(snapshot, from, to);
+            } else {
+                for (int i = from; i < to; i++) {
+                    x[i] += dx[i];
+                    y[i] += dy[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * The BatchResult class holds the outcome of every world of a WorldBatch run: how many ticks it survived,
+ * how many blocks it destroyed and whether it ended with a cleared board, a lost ball or the tick limit,
+ * together with totals over all the worlds and the throughput of the run.
+ */
+public class BatchResult {
+
+    private final long[] ticks;
+    private final int[] blocksDestroyed;
+    private final boolean[] cleared;
+    private final boolean[] lost;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a result for the given number of worlds.
+     *
+     * @param worlds the number of worlds
+     */
+    BatchResult(int worlds) {
+        this.ticks = new long[worlds];
+        this.blocksDestroyed = new int[worlds];
+        this.cleared = new boolean[worlds];
+        this.lost = new boolean[worlds];
+    }
+
+    /**
+     * Records the outcome of a world. Every world is recorded by one thread, into its own slots.
+     *
+     * @param world the index of the world
+     * @param game  the game of the world, after its last tick
+     */
+    void record(int world, Game game) {
+        this.ticks[world] = game.getTick();
+        this.blocksDestroyed[world] = game.getRemovedBlocks();
+        this.cleared[world] = game.isCleared();
+        // A ball lost on the tick the board was cleared does not count.
+        this.lost[world] = !this.cleared[world] && game.isBallLost();
+    }
+
+    /**
+     * Sets the wall-clock time the run took.
+     *
+     * @param nanos the time of the run in nanoseconds
+     */
+    void setElapsedNanos(long nanos) {
+        this.elapsedNanos = nanos;
+    }
+
+    /**
+     * Gets the number of worlds.
+     *
+     * @return the number of worlds
+     */
+    public int worlds() {
+        return ticks.length;
+    }
+
+    /**
+     * Gets the number of ticks a world ran before it ended.
+     *
+     * @param world the index of the world
+     * @return the ticks survived by the world
+     */
+    public long ticks(int world) {
+        return ticks[world];
+    }
+
+    /**
+     * Gets the number of blocks a world destroyed.
+     *
+     * @param world the index of the world
+     * @return the destroyed blocks
+     */
+    public int blocksDestroyed(int world) {
+        return blocksDestroyed[world];
+    }
+
+    /**
+     * Checks if a world ended with every destructible block destroyed.
+     *
+     * @param world the index of the world
+     * @return true if the world cleared its board, false otherwise
+     */
+    public boolean isCleared(int world) {
+        return cleared[world];
+    }
+
+    /**
+     * Checks if a world ended with a ball getting past the paddle.
+     *
+     * @param world the index of the world
+     * @return true if the world lost a ball, false otherwise
+     */
+    public boolean isLost(int world) {
+        return lost[world];
+    }
+
+    /**
+     * Gets the number of ticks run by all the worlds together.
+     *
+     * @return the total number of world-ticks
+     */
+    public long totalTicks() {
+        long total = 0;
+        for (long t : ticks) {
+            total += t;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of blocks destroyed by all the worlds together.
+     *
+     * @return the total number of destroyed blocks
+     */
+    public long totalBlocksDestroyed() {
+        long total = 0;
+        for (int b : blocksDestroyed) {
+            total += b;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of worlds that cleared their board.
+     *
+     * @return the number of cleared worlds
+     */
+    public int clearedWorlds() {
+        int count = 0;
+        for (boolean c : cleared) {
+            if (c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of worlds that lost a ball.
+     *
+     * @return the number of lost worlds
+     */
+    public int lostWorlds() {
+        int count = 0;
+        for (boolean l : lost) {
+            if (l) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the wall-clock time the run took.
+     *
+     * @return the time of the run in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of the run: the ticks run by all the worlds per second of wall-clock time.
+     *
+     * @return the world-ticks per second
+     */
+    public double worldTicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : totalTicks() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        int worlds = worlds();
+        return String.format("%d worlds: mean %.1f ticks survived, mean %.1f blocks destroyed, "
+                        + "%d cleared, %d lost, %d timed out, %.0f world-ticks/second",
+                worlds, worlds == 0 ? 0 : (double) totalTicks() / worlds,
+                worlds == 0 ? 0 : (double) totalBlocksDestroyed() / worlds,
+                clearedWorlds(), lostWorlds(), worlds - clearedWorlds() - lostWorlds(), worldTicksPerSecond());
+    }
+}
@@ -1,4 +1,6 @@
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Block class represents a block in the game, implementing both the Collidable and Sprite interfaces.
@@ -6,15 +8,78 @@ import java.awt.*;
  */
 public class Block implements Collidable, Sprite {
 
+    /**
+     * The hit points of a block that can never be destroyed, such as the game frame.
+     */
+    public static final int INDESTRUCTIBLE = -1;
+
     private Rectangle rect;
+    private int hitPoints;
+    private List<HitListener> hitListeners = new ArrayList<>();
 
     /**
-     * Creates a Block with a specified rectangle.
+     * Creates an indestructible Block with a specified rectangle.
      *
      * @param rect  the rectangle representing the block's position and size
      */
     public Block(Rectangle rect) {
+        this(rect, INDESTRUCTIBLE);
+    }
+
+    /**
+     * Creates a Block with a specified rectangle that is destroyed after a number of hits.
+     *
+     * @param rect       the rectangle representing the block's position and size
+     * @param hitPoints  the number of hits the block takes before it is destroyed, or INDESTRUCTIBLE
+     */
+    public Block(Rectangle rect, int hitPoints) {
         this.rect = rect;
+        this.hitPoints = hitPoints;
+    }
+
+    /**
+     * Gets the number of hits left before the block is destroyed.
+     *
+     * @return the remaining hit points, or INDESTRUCTIBLE
+     */
+    public int getHitPoints() {
+        return this.hitPoints;
+    }
+
+    /**
+     * Sets the number of hits left before the block is destroyed, such as when a saved game is restored.
+     *
+     * @param hitPoints  the remaining hit points, or INDESTRUCTIBLE
+     */
+    public void setHitPoints(int hitPoints) {
+        this.hitPoints = hitPoints;
+    }
+
+    /**
+     * Checks if the block has run out of hit points.
+     *
+     * @return true if the block is destroyed, false otherwise
+     */
+    public boolean isDestroyed() {
+        return this.hitPoints == 0;
+    }
+
+    /**
+     * Adds a listener that is notified whenever the block is hit.
+     *
+     * @param hl  the listener to be added
+     */
+    public void addHitListener(HitListener hl) {
+        this.hitListeners.add(hl);
+    }
+
+    /**
+     * Removes a hit listener. A listener may remove itself while it is being notified.
+     *
+     * @param hl  the listener to be removed
+     */
+    public void removeHitListener(HitListener hl) {
+        this.hitListeners.remove(hl);
     }
 
     /**
@@ -27,27 +92,69 @@ public class Block implements Collidable, Sprite {
     }
 
     /**
-     * Draws the block on the specified DrawSurface.
+     * Draws the block on the specified DrawSurface, filled in its color with a black outline.
+     * The outline covers the same pixels as drawing the four edges of the block one by one.
      *
      * @param surface  the DrawSurface on which the block will be drawn
      */
     public void drawOn(biuoop.DrawSurface surface) {
-        surface.setColor(Color.cyan);
-        this.getCollisionRectangle().drawOn(surface);
-        Line[] linesArray = this.rect.linesOfRect();
-        for (int i = 0; i < linesArray.length; i++) {
-            linesArray[i].drawOn(surface);
-        }
+        this.rect.drawOn(surface);
+        surface.setColor(Color.black);
+        surface.drawRectangle(this.rect.getTopX(), this.rect.getTopY(),
+                this.rect.getBottomX() - this.rect.getTopX(), this.rect.getBottomY() - this.rect.getTopY());
     }
 
     /**
      * Handles the block's collision response when hit by a ball.
+     * Every hit takes one hit point from a destructible block and notifies the hit listeners.
      *
      * @param collisionPoint      the point where the collision occurred
      * @param currentVelocity     the current velocity of the colliding object
      * @return                    the new velocity after the collision
      */
     public Velocity hit(Point collisionPoint, Velocity currentVelocity) {
+        Velocity newVelocity = new Velocity(currentVelocity.dx, currentVelocity.dy);
+        hit(collisionPoint, currentVelocity, newVelocity);
+        return newVelocity;
+    }
+
+    /**
+     * Handles the block's collision response when hit by a ball, writing the new velocity into the given one.
+     *
+     * @param collisionPoint      the point where the collision occurred
+     * @param currentVelocity     the current velocity of the colliding object
+     * @param result              the velocity to set to the new velocity, which may be currentVelocity
+     */
+    public void hit(Point collisionPoint, Velocity currentVelocity, Velocity result) {
+        bounce(collisionPoint, currentVelocity, result);
+        if (this.hitPoints > 0) {
+            this.hitPoints--;
+        }
+        notifyHit();
+    }
+
+    /**
+     * Notifies all hit listeners that the block was hit. Listeners are called from the last one added,
+     * so a listener removing itself does not cause another one to be skipped.
+     */
+    private void notifyHit() {
+        for (int i = this.hitListeners.size() - 1; i >= 0; i--) {
+            if (i < this.hitListeners.size()) {
+                this.hitListeners.get(i).hitEvent(this);
+            }
+        }
+    }
+
+    /**
+     * Calculates the velocity of a ball bouncing off the side of the block it hit.
+     *
+     * @param collisionPoint      the point where the collision occurred
+     * @param currentVelocity     the current velocity of the colliding object
+     * @param result              the velocity to set to the new velocity, which may be currentVelocity
+     */
+    private void bounce(Point collisionPoint, Velocity currentVelocity, Velocity result) {
+        double dx = currentVelocity.dx;
+        double dy = currentVelocity.dy;
         /*
          Check if the x value of collision point is the same as the bottom x of the block up to epsilon
          Also checks if we are in the range of y to commit a collision.
@@ -56,24 +163,28 @@ public class Block implements Collidable, Sprite {
         if (Threshold.areEqual(this.rect.getBottomX(), collisionPoint.getX())
                 && collisionPoint.getY() < this.rect.getBottomY()
                 && collisionPoint.getY() > this.rect.getTopY()) {
-            return new Velocity(-currentVelocity.dx, currentVelocity.dy);
+            result.set(-dx, dy);
+            return;
         }
         if (Threshold.areEqual(this.rect.getTopX(), collisionPoint.getX())
                 && collisionPoint.getY() < this.rect.getBottomY()
                 && collisionPoint.getY() > this.rect.getTopY()) {
-            return new Velocity(-currentVelocity.dx, currentVelocity.dy);
+            result.set(-dx, dy);
+            return;
         }
         if (Threshold.areEqual(this.rect.getBottomY(), collisionPoint.getY())
                 && collisionPoint.getX() < this.rect.getBottomX()
                 && collisionPoint.getX() > this.rect.getTopX()) {
-            return new Velocity(currentVelocity.dx, -currentVelocity.dy);
+            result.set(dx, -dy);
+            return;
         }
         if (Threshold.areEqual(this.rect.getTopY(), collisionPoint.getY())
                 && collisionPoint.getX() < this.rect.getBottomX()
                 && collisionPoint.getX() > this.rect.getTopX()) {
-            return new Velocity(currentVelocity.dx, -currentVelocity.dy);
+            result.set(dx, -dy);
+            return;
         }
-        return currentVelocity;
+        result.set(dx, dy);
     }
 
     /**
@@ -103,4 +214,14 @@ public class Block implements Collidable, Sprite {
     public void addToGame(Game game, Boolean frame) {
         game.addCollidable(this);
     }
+
+    /**
+     * Removes the block from the specified Game, both as a collidable and as a sprite.
+     *
+     * @param game  the Game from which the block will be removed
+     */
+    public void removeFromGame(Game game) {
+        game.removeCollidable(this);
+        game.removeSprite(this);
+    }
 }
@@ -0,0 +1,42 @@
+/**
+ * The BlockRemover class is a HitListener that removes blocks from the game once they run out of hit points.
+ * Removal from the sprites and from the game environment is deferred to the end of the current tick,
+ * so blocks can be destroyed while the sprites are being updated.
+ */
+public class BlockRemover implements HitListener {
+
+    private final Game game;
+    private int removedBlocks;
+
+    /**
+     * Constructs a block remover for the given game.
+     *
+     * @param game the game to remove blocks from
+     */
+    public BlockRemover(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Removes the block from the game if it has no hit points left, and stops listening to it.
+     *
+     * @param beingHit the block that was hit
+     */
+    public void hitEvent(Block beingHit) {
+        if (!beingHit.isDestroyed()) {
+            return;
+        }
+        beingHit.removeHitListener(this);
+        beingHit.removeFromGame(game);
+        removedBlocks++;
+    }
+
+    /**
+     * Gets the number of blocks removed so far.
+     *
+     * @return the number of removed blocks
+     */
+    public int getRemovedBlocks() {
+        return removedBlocks;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.List;
+
+/**
+ * The BroadPhase interface represents a spatial index over the collidables of a game environment.
+ * It is used to quickly narrow down which collidables may be hit by a trajectory, so that only those
+ * are tested for an exact intersection.
+ */
+public interface BroadPhase {
+
+    /**
+     * Adds a collidable to the index, using its current collision rectangle as its bounds.
+     *
+     * @param c the collidable to be added
+     */
+    void insert(Collidable c);
+
+    /**
+     * Removes a collidable from the index. Does nothing if the collidable is not indexed.
+     *
+     * @param c the collidable to be removed
+     */
+    void remove(Collidable c);
+
+    /**
+     * Refreshes the bounds of a collidable whose collision rectangle has moved.
+     *
+     * @param c the collidable that moved
+     */
+    void update(Collidable c);
+
+    /**
+     * Collects every indexed collidable whose bounds overlap the given box.
+     * Each collidable is added to the output list at most once.
+     *
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param out  the list to which the candidates are added
+     */
+    void query(double minX, double minY, double maxX, double maxY, List<Collidable> out);
+
+    /**
+     * Returns the number of indexed collidables.
+     *
+     * @return the number of collidables in the index
+     */
+    int size();
+}
@@ -20,4 +20,18 @@ public interface Collidable {
      * @return                    the new velocity after the collision
      */
     Velocity hit(Point collisionPoint, Velocity currentVelocity);
+
+    /**
+     * Notifies the object that a collision occurred, like hit(collisionPoint, currentVelocity), but writes the
+     * new velocity into a velocity owned by the caller instead of returning a new one.
+     * The result may be the current velocity itself, to update it in place.
+     *
+     * @param collisionPoint      the point where the collision occurred
+     * @param currentVelocity     the current velocity of the colliding object
+     * @param result              the velocity to set to the new velocity after the collision
+     */
+    default void hit(Point collisionPoint, Velocity currentVelocity, Velocity result) {
+        Velocity newVelocity = hit(collisionPoint, currentVelocity);
+        result.set(newVelocity.dx, newVelocity.dy);
+    }
 }
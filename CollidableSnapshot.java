@@ -0,0 +1,234 @@
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The CollidableSnapshot class is a read-only copy of the collidables of a game environment, indexed by
+ * a uniform grid stored in flat arrays. Its queries keep no state of their own, so any number of threads
+ * can search it at once, as long as no collidable moves while they do.
+ * Collidables are numbered in the order of the list they are copied from; GameEnvironment.snapshot gives
+ * them in the order they were added to the environment, whatever was removed since.
+ * <p>
+ * Collidables that move, such as the paddle, are kept out of the grid and tested on every query where they
+ * are at the time, against the same cells as the grid. The snapshot therefore stays valid while they move,
+ * and only has to be rebuilt when a collidable is added or removed.
+ */
+public final class CollidableSnapshot {
+
+    private final Collidable[] objects;
+    private final double cellSize;
+    private final int originCx;
+    private final int originCy;
+    private final int columns;
+    private final int rows;
+    // The collidables of cell c are cellItems[cellStart[c]] up to (not including) cellItems[cellStart[c + 1]].
+    private final int[] cellStart;
+    private final int[] cellItems;
+    private final int[] minCx;
+    private final int[] minCy;
+    // The numbers of the moving collidables, which are not in the grid.
+    private final int[] moving;
+
+    /**
+     * Constructs a snapshot of the given collidables, with the ones that do not move at their current positions.
+     *
+     * @param collidables the collidables to be copied, in the order they were added
+     * @param movers      the collidables among them that move
+     * @param cellSize    the width and height of a single grid cell
+     */
+    public CollidableSnapshot(List<Collidable> collidables, Set<Collidable> movers, double cellSize) {
+        this.cellSize = cellSize;
+        int n = collidables.size();
+        this.objects = collidables.toArray(new Collidable[n]);
+        this.minCx = new int[n];
+        this.minCy = new int[n];
+        int[] maxCx = new int[n];
+        int[] maxCy = new int[n];
+        boolean[] isMoving = new boolean[n];
+        int movingCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (movers.contains(objects[i])) {
+                isMoving[i] = true;
+                movingCount++;
+            }
+        }
+        this.moving = new int[movingCount];
+
+        int lowCx = Integer.MAX_VALUE;
+        int lowCy = Integer.MAX_VALUE;
+        int highCx = Integer.MIN_VALUE;
+        int highCy = Integer.MIN_VALUE;
+        for (int i = 0, m = 0; i < n; i++) {
+            if (isMoving[i]) {
+                moving[m++] = i;
+                continue;
+            }
+            Rectangle rect = objects[i].getCollisionRectangle();
+            minCx[i] = cellOf(rect.getTopX());
+            minCy[i] = cellOf(rect.getTopY());
+            maxCx[i] = cellOf(rect.getBottomX());
+            maxCy[i] = cellOf(rect.getBottomY());
+            lowCx = Math.min(lowCx, minCx[i]);
+            lowCy = Math.min(lowCy, minCy[i]);
+            highCx = Math.max(highCx, maxCx[i]);
+            highCy = Math.max(highCy, maxCy[i]);
+        }
+        if (n == movingCount) {
+            lowCx = 0;
+            lowCy = 0;
+            highCx = 0;
+            highCy = 0;
+        }
+        this.originCx = lowCx;
+        this.originCy = lowCy;
+        this.columns = highCx - lowCx + 1;
+        this.rows = highCy - lowCy + 1;
+
+        // Count the collidables of every cell, turn the counts into offsets, then fill the cells.
+        this.cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < n; i++) {
+            if (isMoving[i]) {
+                continue;
+            }
+            for (int cy = minCy[i]; cy <= maxCy[i]; cy++) {
+                for (int cx = minCx[i]; cx <= maxCx[i]; cx++) {
+                    cellStart[cellIndex(cx, cy) + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellItems = new int[cellStart[columns * rows]];
+        int[] fill = new int[columns * rows];
+        for (int i = 0; i < n; i++) {
+            if (isMoving[i]) {
+                continue;
+            }
+            for (int cy = minCy[i]; cy <= maxCy[i]; cy++) {
+                for (int cx = minCx[i]; cx <= maxCx[i]; cx++) {
+                    int c = cellIndex(cx, cy);
+                    cellItems[cellStart[c] + fill[c]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of collidables in the snapshot.
+     *
+     * @return the number of collidables
+     */
+    public int size() {
+        return objects.length;
+    }
+
+    /**
+     * Gets a collidable by its number.
+     *
+     * @param index the number of the collidable
+     * @return the collidable
+     */
+    public Collidable get(int index) {
+        return objects[index];
+    }
+
+    /**
+     * Finds the closest collision for a ball moving along a trajectory that starts at its truncated center,
+     * following the same rules as GameEnvironment.findClosestCollision. When two collidables are hit at the
+     * same distance the one added first wins, so the result never depends on how the work was split.
+     *
+     * @param trajectory the trajectory line of the ball, owned by the calling thread
+     * @param dx         the change in x-coordinate per step of the ball
+     * @param dy         the change in y-coordinate per step of the ball
+     * @param radius     the radius of the ball
+     * @param hit        a point owned by the calling thread, it receives the closest collision point
+     * @return the number of the collidable that was hit, or -1 if there is no collision
+     */
+    public int findClosestCollision(Line trajectory, double dx, double dy, int radius, Point hit) {
+        double grow = radius + 1;
+        double minX = Math.min(trajectory.start().getX(), trajectory.end().getX()) - grow;
+        double minY = Math.min(trajectory.start().getY(), trajectory.end().getY()) - grow;
+        double maxX = Math.max(trajectory.start().getX(), trajectory.end().getX()) + grow;
+        double maxY = Math.max(trajectory.start().getY(), trajectory.end().getY()) + grow;
+        int queryFromCx = cellOf(minX);
+        int queryFromCy = cellOf(minY);
+        int queryToCx = cellOf(maxX);
+        int queryToCy = cellOf(maxY);
+        int fromCx = Math.max(queryFromCx, originCx);
+        int fromCy = Math.max(queryFromCy, originCy);
+        int toCx = Math.min(queryToCx, originCx + columns - 1);
+        int toCy = Math.min(queryToCy, originCy + rows - 1);
+
+        int closestIndex = -1;
+        double closestX = 0;
+        double closestY = 0;
+        double closestDistance = 0;
+        for (int m = 0; m < moving.length; m++) {
+            int i = moving[m];
+            // Tested if it shares a cell with the query, like the collidables in the grid.
+            Rectangle rect = objects[i].getCollisionRectangle();
+            if (cellOf(rect.getBottomX()) < queryFromCx || cellOf(rect.getTopX()) > queryToCx
+                    || cellOf(rect.getBottomY()) < queryFromCy || cellOf(rect.getTopY()) > queryToCy) {
+                continue;
+            }
+            double distance = distanceTo(i, trajectory, dx, dy, hit);
+            if (distance >= 0 && (closestIndex < 0 || distance < closestDistance
+                    || (distance == closestDistance && i < closestIndex))) {
+                closestIndex = i;
+                closestX = hit.getX();
+                closestY = hit.getY();
+                closestDistance = distance;
+            }
+        }
+        for (int cy = fromCy; cy <= toCy; cy++) {
+            for (int cx = fromCx; cx <= toCx; cx++) {
+                int c = cellIndex(cx, cy);
+                for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                    int i = cellItems[k];
+                    // A collidable spanning several cells is only tested in the first cell the query shares with it.
+                    if (cx != Math.max(minCx[i], fromCx) || cy != Math.max(minCy[i], fromCy)) {
+                        continue;
+                    }
+                    double distance = distanceTo(i, trajectory, dx, dy, hit);
+                    if (distance >= 0 && (closestIndex < 0 || distance < closestDistance
+                            || (distance == closestDistance && i < closestIndex))) {
+                        closestIndex = i;
+                        closestX = hit.getX();
+                        closestY = hit.getY();
+                        closestDistance = distance;
+                    }
+                }
+            }
+        }
+        if (closestIndex >= 0) {
+            hit.setLocation(closestX, closestY);
+        }
+        return closestIndex;
+    }
+
+    /**
+     * Finds where a trajectory hits a collidable, ahead of the ball.
+     *
+     * @param i          the number of the collidable
+     * @param trajectory the trajectory line of the ball
+     * @param dx         the change in x-coordinate per step of the ball
+     * @param dy         the change in y-coordinate per step of the ball
+     * @param hit        receives the hit
+     * @return the distance of the hit from the start of the trajectory, or -1 if there is no hit ahead
+     */
+    private double distanceTo(int i, Line trajectory, double dx, double dy, Point hit) {
+        if (!trajectory.closestIntersectionToStartOfLine(objects[i].getCollisionRectangle(), dx, dy, hit)
+                || !trajectory.isInDirection(hit, dx, dy)) {
+            return -1;
+        }
+        return hit.distance(trajectory.start());
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private int cellIndex(int cx, int cy) {
+        return (cy - originCy) * columns + (cx - originCx);
+    }
+}
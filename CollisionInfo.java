@@ -17,6 +17,36 @@ public class CollisionInfo {
         this.collisionObject = object;
     }
 
+    /**
+     * Constructs an empty CollisionInfo that owns its collision point, to be filled by a collision query.
+     */
+    public CollisionInfo() {
+        this(new Point(0, 0), null);
+    }
+
+    /**
+     * Replaces the collision point and collidable object, so a single instance can be reused between queries.
+     *
+     * @param point  the point at which the collision occurs
+     * @param object the collidable object involved in the collision
+     */
+    public void set(Point point, Collidable object) {
+        this.collisionPoint = point;
+        this.collisionObject = object;
+    }
+
+    /**
+     * Overwrites the coordinates of the collision point in place and replaces the collidable object.
+     *
+     * @param x      the x-coordinate of the collision point
+     * @param y      the y-coordinate of the collision point
+     * @param object the collidable object involved in the collision
+     */
+    public void set(double x, double y, Collidable object) {
+        this.collisionPoint.setLocation(x, y);
+        this.collisionObject = object;
+    }
+
     /**
      * Retrieves the point at which the collision occurs.
      *
@@ -0,0 +1,82 @@
+/**
+ * The Counter class counts events, such as collision queries, and also records how many happened in each
+ * frame into a histogram. Incrementing does not allocate. A counter is meant to be incremented from one
+ * thread at a time.
+ */
+public class Counter {
+
+    private final String name;
+    private final Histogram perFrame;
+    private long value;
+    private long frameStart;
+
+    /**
+     * Constructs a counter at zero.
+     *
+     * @param name the name of the counter
+     */
+    public Counter(String name) {
+        this.name = name;
+        this.perFrame = new Histogram(name + " per frame");
+    }
+
+    /**
+     * Gets the name of the counter.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        value++;
+    }
+
+    /**
+     * Counts several events.
+     *
+     * @param n the number of events
+     */
+    public void add(long n) {
+        value += n;
+    }
+
+    /**
+     * Gets the number of events counted so far.
+     *
+     * @return the total count
+     */
+    public long value() {
+        return value;
+    }
+
+    /**
+     * Gets the distribution of the number of events per frame.
+     *
+     * @return the per-frame histogram
+     */
+    public Histogram perFrame() {
+        return perFrame;
+    }
+
+    /**
+     * Records the events counted since the last call as one frame.
+     */
+    void endFrame() {
+        perFrame.record(value - frameStart);
+        frameStart = value;
+    }
+
+    /**
+     * Sets the counter back to zero and forgets the frames.
+     */
+    void reset() {
+        value = 0;
+        frameStart = 0;
+        perFrame.reset();
+    }
+}
@@ -0,0 +1,294 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The DirtyRectRenderer class renders the game into an offscreen image, redrawing as little as possible.
+ * Static sprites, such as blocks, are drawn once into a cached background image. Every frame only the
+ * areas covered by moving sprites in the previous and in the current frame are restored from the background,
+ * and then the moving sprites are drawn on top. Removing a static sprite re-rasterizes only its area, and
+ * only the static sprites that reach into that area, blocks by their rectangles, are drawn again.
+ * <p>
+ * The frames are drawn on an OffscreenDrawSurface, so they can be kept in a volatile image. When its
+ * contents are lost, the whole frame is drawn again from the background.
+ */
+public class DirtyRectRenderer {
+
+    // When the dirty areas add up to more than this share of the screen, copying everything is cheaper.
+    private static final double FULL_COPY_RATIO = 0.5;
+
+    private final int width;
+    private final int height;
+    private final Color backgroundColor;
+    private final ImageDrawSurface background;
+    private final OffscreenDrawSurface frame;
+    private final List<StaticSprite> staticSprites = new ArrayList<>();
+    private final List<MovingSprite> movingSprites = new ArrayList<>();
+    private DirtyRegions previous = new DirtyRegions();
+    private DirtyRegions current = new DirtyRegions();
+    private final DirtyRegions invalidated = new DirtyRegions();
+    private boolean backgroundStale = true;
+    private boolean fullCopy = true;
+    private int lastRestoredRegions;
+
+    /**
+     * Constructs a renderer for a screen of the given size, drawing its frames straight into an image.
+     *
+     * @param width           the width of the screen
+     * @param height          the height of the screen
+     * @param backgroundColor the color behind all sprites
+     */
+    public DirtyRectRenderer(int width, int height, Color backgroundColor) {
+        this(width, height, backgroundColor, false);
+    }
+
+    /**
+     * Constructs a renderer for a screen of the given size.
+     *
+     * @param width           the width of the screen
+     * @param height          the height of the screen
+     * @param backgroundColor the color behind all sprites
+     * @param accelerated     whether to draw the frames into a volatile image when one is available
+     */
+    public DirtyRectRenderer(int width, int height, Color backgroundColor, boolean accelerated) {
+        this.width = width;
+        this.height = height;
+        this.backgroundColor = backgroundColor;
+        this.background = new ImageDrawSurface(width, height);
+        this.frame = new OffscreenDrawSurface(width, height, accelerated);
+    }
+
+    /**
+     * Adds every sprite of a collection, as a moving sprite if it implements MovingSprite
+     * and as a static sprite otherwise.
+     *
+     * @param sprites the sprites to add
+     */
+    public void addAll(SpriteCollection sprites) {
+        for (Sprite sprite : sprites.asList()) {
+            if (sprite instanceof MovingSprite) {
+                addMoving((MovingSprite) sprite);
+            } else {
+                addStatic(sprite);
+            }
+        }
+    }
+
+    /**
+     * Adds a sprite that is drawn into the cached background. The background is rebuilt on the next frame.
+     *
+     * @param sprite the static sprite
+     */
+    public void addStatic(Sprite sprite) {
+        staticSprites.add(new StaticSprite(sprite));
+        backgroundStale = true;
+    }
+
+    /**
+     * Removes a static sprite, re-rasterizing the background only in the area it covered.
+     *
+     * @param sprite the static sprite
+     * @param area   the area the sprite was drawn in
+     */
+    public void removeStatic(Sprite sprite, Rectangle area) {
+        for (int i = 0; i < staticSprites.size(); i++) {
+            if (staticSprites.get(i).sprite == sprite) {
+                staticSprites.remove(i);
+                // Outlines are drawn on the right and bottom edges too, so include them.
+                invalidated.add(area.getTopX(), area.getTopY(),
+                        area.getBottomX() - area.getTopX() + 1, area.getBottomY() - area.getTopY() + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a sprite that is redrawn every frame.
+     *
+     * @param sprite the moving sprite
+     */
+    public void addMoving(MovingSprite sprite) {
+        movingSprites.add(sprite);
+    }
+
+    /**
+     * Removes a moving sprite. The area it was last drawn in is restored on the next frame.
+     *
+     * @param sprite the moving sprite
+     */
+    public void removeMoving(MovingSprite sprite) {
+        movingSprites.remove(sprite);
+    }
+
+    /**
+     * Gets the number of areas restored from the background in the last frame, or -1 if the
+     * whole background was copied.
+     *
+     * @return the number of restored areas
+     */
+    public int getLastRestoredRegions() {
+        return lastRestoredRegions;
+    }
+
+    /**
+     * Renders a frame and returns the image holding it. The same image is returned every frame.
+     *
+     * @param alpha how far the frame is between the last tick and the next one, from 0 to 1
+     * @return the rendered frame
+     */
+    public BufferedImage render(double alpha) {
+        if (backgroundStale) {
+            rasterizeBackground(0, 0, width, height);
+            backgroundStale = false;
+            fullCopy = true;
+        } else {
+            for (int i = 0; i < invalidated.size(); i++) {
+                rasterizeBackground(invalidated.x(i), invalidated.y(i), invalidated.width(i), invalidated.height(i));
+            }
+        }
+
+        current.clear();
+        for (MovingSprite sprite : movingSprites) {
+            sprite.addDrawnArea(current, alpha);
+        }
+
+        long dirtyArea = previous.area() + current.area() + invalidated.area();
+        boolean copyAll = fullCopy || dirtyArea > FULL_COPY_RATIO * width * height;
+        // A frame whose contents were lost, before or while it was drawn, is drawn again in full.
+        while (true) {
+            if (!frame.beginFrame()) {
+                copyAll = true;
+            }
+            drawFrame(copyAll, alpha);
+            if (frame.endFrame()) {
+                break;
+            }
+            copyAll = true;
+        }
+
+        DirtyRegions swap = previous;
+        previous = current;
+        current = swap;
+        invalidated.clear();
+        fullCopy = false;
+        return frame.getImage();
+    }
+
+    /**
+     * Releases the images of the renderer. It must not render afterwards.
+     */
+    public void dispose() {
+        background.dispose();
+        frame.dispose();
+    }
+
+    /**
+     * Restores the dirty areas of the frame, or all of it, from the background and draws the moving sprites.
+     *
+     * @param copyAll whether to copy the whole background
+     * @param alpha   how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    private void drawFrame(boolean copyAll, double alpha) {
+        Graphics2D g = frame.getGraphics();
+        if (copyAll) {
+            g.drawImage(background.getImage(), 0, 0, null);
+            lastRestoredRegions = -1;
+        } else {
+            restore(g, previous);
+            restore(g, current);
+            restore(g, invalidated);
+            lastRestoredRegions = previous.size() + current.size() + invalidated.size();
+        }
+        for (MovingSprite sprite : movingSprites) {
+            sprite.drawOn(frame, alpha);
+        }
+    }
+
+    /**
+     * Copies areas of the background into the frame.
+     *
+     * @param g       the graphics of the frame
+     * @param regions the areas to copy
+     */
+    private void restore(Graphics2D g, DirtyRegions regions) {
+        BufferedImage image = background.getImage();
+        for (int i = 0; i < regions.size(); i++) {
+            int x1 = Math.max(regions.x(i), 0);
+            int y1 = Math.max(regions.y(i), 0);
+            int x2 = Math.min(regions.x(i) + regions.width(i), width);
+            int y2 = Math.min(regions.y(i) + regions.height(i), height);
+            if (x1 < x2 && y1 < y2) {
+                g.drawImage(image, x1, y1, x2, y2, x1, y1, x2, y2, null);
+            }
+        }
+    }
+
+    /**
+     * Redraws the background color and the static sprites inside an area of the background.
+     * Static sprites that do not reach into the area are skipped, so the cost depends on what is near the
+     * area rather than on every static sprite.
+     *
+     * @param x the left edge of the area
+     * @param y the top edge of the area
+     * @param w the width of the area
+     * @param h the height of the area
+     */
+    private void rasterizeBackground(int x, int y, int w, int h) {
+        Graphics2D g = background.getGraphics();
+        g.setClip(x, y, w, h);
+        background.setColor(backgroundColor);
+        background.fillRectangle(x, y, w, h);
+        for (int i = 0; i < staticSprites.size(); i++) {
+            StaticSprite sprite = staticSprites.get(i);
+            if (sprite.intersects(x, y, w, h)) {
+                sprite.sprite.drawOn(background);
+            }
+        }
+        g.setClip(null);
+    }
+
+    /**
+     * A static sprite and the area it draws in. The area of a block is its rectangle with the outline on the
+     * right and bottom edges; any other sprite may draw anywhere, so it is drawn into every area.
+     */
+    private static final class StaticSprite {
+        private final Sprite sprite;
+        private final boolean bounded;
+        private final int left;
+        private final int top;
+        private final int right;
+        private final int bottom;
+
+        StaticSprite(Sprite sprite) {
+            this.sprite = sprite;
+            this.bounded = sprite instanceof Block;
+            if (bounded) {
+                Rectangle rect = ((Block) sprite).getCollisionRectangle();
+                this.left = Math.min(rect.getTopX(), rect.getBottomX());
+                this.top = Math.min(rect.getTopY(), rect.getBottomY());
+                this.right = Math.max(rect.getTopX(), rect.getBottomX()) + 1;
+                this.bottom = Math.max(rect.getTopY(), rect.getBottomY()) + 1;
+            } else {
+                this.left = 0;
+                this.top = 0;
+                this.right = 0;
+                this.bottom = 0;
+            }
+        }
+
+        /**
+         * Checks whether the sprite may draw inside an area.
+         *
+         * @param x the left edge of the area
+         * @param y the top edge of the area
+         * @param w the width of the area
+         * @param h the height of the area
+         * @return true if the sprite has to be drawn to redraw the area
+         */
+        boolean intersects(int x, int y, int w, int h) {
+            return !bounded || (left < x + w && x < right && top < y + h && y < bottom);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * The DirtyRegions class is a growable list of screen rectangles that need to be redrawn,
+ * stored as parallel int arrays so collecting them every frame does not allocate.
+ */
+public class DirtyRegions {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] x = new int[INITIAL_CAPACITY];
+    private int[] y = new int[INITIAL_CAPACITY];
+    private int[] width = new int[INITIAL_CAPACITY];
+    private int[] height = new int[INITIAL_CAPACITY];
+    private int count;
+    private long area;
+
+    /**
+     * Adds a rectangle to the list. Empty rectangles are ignored.
+     *
+     * @param left   the left edge of the rectangle
+     * @param top    the top edge of the rectangle
+     * @param w      the width of the rectangle
+     * @param h      the height of the rectangle
+     */
+    public void add(int left, int top, int w, int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        if (count == x.length) {
+            int capacity = count * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+        }
+        x[count] = left;
+        y[count] = top;
+        width[count] = w;
+        height[count] = h;
+        count++;
+        area += (long) w * h;
+    }
+
+    /**
+     * Adds the box around a circle, as drawn by DrawSurface.fillCircle.
+     *
+     * @param centerX the x-coordinate of the center
+     * @param centerY the y-coordinate of the center
+     * @param radius  the radius of the circle
+     */
+    public void addCircle(int centerX, int centerY, int radius) {
+        add(centerX - radius, centerY - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /**
+     * Adds all the rectangles of another list.
+     *
+     * @param other the list to copy the rectangles from
+     */
+    public void addAll(DirtyRegions other) {
+        for (int i = 0; i < other.count; i++) {
+            add(other.x[i], other.y[i], other.width[i], other.height[i]);
+        }
+    }
+
+    /**
+     * Removes all rectangles, keeping the allocated capacity.
+     */
+    public void clear() {
+        count = 0;
+        area = 0;
+    }
+
+    /**
+     * Gets the number of rectangles in the list.
+     *
+     * @return the number of rectangles
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the total area of the rectangles, counting overlapping parts more than once.
+     *
+     * @return the total area in pixels
+     */
+    public long area() {
+        return area;
+    }
+
+    /**
+     * Gets the left edge of a rectangle.
+     *
+     * @param i the index of the rectangle
+     * @return the left edge
+     */
+    public int x(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the top edge of a rectangle.
+     *
+     * @param i the index of the rectangle
+     * @return the top edge
+     */
+    public int y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the width of a rectangle.
+     *
+     * @param i the index of the rectangle
+     * @return the width
+     */
+    public int width(int i) {
+        return width[i];
+    }
+
+    /**
+     * Gets the height of a rectangle.
+     *
+     * @param i the index of the rectangle
+     * @return the height
+     */
+    public int height(int i) {
+        return height[i];
+    }
+}
@@ -0,0 +1,253 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Polygon;
+import java.util.Arrays;
+
+/**
+ * The DisplayList class is a DrawSurface that records what is drawn on it, so it can be drawn again later,
+ * possibly on another thread and onto another surface. Every call is stored as an op code and four int
+ * arguments, with the color, text or polygon of the call kept alongside.
+ * Two lists recorded from the same sprites at different times can be drawn part of the way from one to
+ * the other, which is how moving sprites are interpolated between ticks.
+ */
+public class DisplayList implements DrawSurface {
+
+    private static final int STRIDE = 5;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final int DRAW_CIRCLE = 0;
+    private static final int FILL_CIRCLE = 1;
+    private static final int DRAW_OVAL = 2;
+    private static final int FILL_OVAL = 3;
+    private static final int DRAW_LINE = 4;
+    private static final int DRAW_RECTANGLE = 5;
+    private static final int FILL_RECTANGLE = 6;
+    private static final int DRAW_POLYGON = 7;
+    private static final int FILL_POLYGON = 8;
+    private static final int DRAW_TEXT = 9;
+    private static final int SET_COLOR = 10;
+
+    private final int width;
+    private final int height;
+    private int[] ops = new int[INITIAL_CAPACITY * STRIDE];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Constructs an empty display list that reports the given size to the sprites drawn on it.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public DisplayList(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Removes everything recorded, keeping the storage for the next recording.
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Gets the number of recorded calls.
+     *
+     * @return the number of calls
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param op     the op code of the call
+     * @param a      the first argument
+     * @param b      the second argument
+     * @param c      the third argument
+     * @param d      the fourth argument
+     * @param object the color, text or polygon of the call, or null
+     */
+    private void add(int op, int a, int b, int c, int d, Object object) {
+        if (count == objects.length) {
+            ops = Arrays.copyOf(ops, ops.length * 2);
+            objects = Arrays.copyOf(objects, objects.length * 2);
+        }
+        int i = count * STRIDE;
+        ops[i] = op;
+        ops[i + 1] = a;
+        ops[i + 2] = b;
+        ops[i + 3] = c;
+        ops[i + 4] = d;
+        objects[count] = object;
+        count++;
+    }
+
+    /**
+     * Draws the recorded calls onto another surface.
+     *
+     * @param d the surface to draw on
+     */
+    public void drawOn(DrawSurface d) {
+        drawOn(d, null, 0);
+    }
+
+    /**
+     * Draws the recorded calls onto another surface, moving every coordinate part of the way to the matching
+     * call of another list. Calls that do not match the other list are drawn as recorded.
+     *
+     * @param d      the surface to draw on
+     * @param target the list to interpolate towards, or null
+     * @param alpha  how far to move towards the target, from 0 to 1
+     */
+    public void drawOn(DrawSurface d, DisplayList target, double alpha) {
+        boolean interpolate = target != null && target.count == count && alpha != 0;
+        for (int n = 0; n < count; n++) {
+            int i = n * STRIDE;
+            int op = ops[i];
+            int a = ops[i + 1];
+            int b = ops[i + 2];
+            int c = ops[i + 3];
+            int e = ops[i + 4];
+            if (interpolate && target.ops[i] == op) {
+                a += (int) ((target.ops[i + 1] - a) * alpha);
+                b += (int) ((target.ops[i + 2] - b) * alpha);
+                c += (int) ((target.ops[i + 3] - c) * alpha);
+                e += (int) ((target.ops[i + 4] - e) * alpha);
+            }
+            draw(d, op, a, b, c, e, objects[n]);
+        }
+    }
+
+    /**
+     * Draws one recorded call onto another surface, as recorded.
+     *
+     * @param d the surface to draw on
+     * @param n the number of the call, from 0 to size() - 1
+     */
+    void drawCall(DrawSurface d, int n) {
+        int i = n * STRIDE;
+        draw(d, ops[i], ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4], objects[n]);
+    }
+
+    /**
+     * Makes one call on a surface.
+     *
+     * @param d      the surface to draw on
+     * @param op     the op code of the call
+     * @param a      the first argument
+     * @param b      the second argument
+     * @param c      the third argument
+     * @param e      the fourth argument
+     * @param object the color, text or polygon of the call, or null
+     */
+    private static void draw(DrawSurface d, int op, int a, int b, int c, int e, Object object) {
+        switch (op) {
+            case DRAW_CIRCLE:
+                d.drawCircle(a, b, c);
+                break;
+            case FILL_CIRCLE:
+                d.fillCircle(a, b, c);
+                break;
+            case DRAW_OVAL:
+                d.drawOval(a, b, c, e);
+                break;
+            case FILL_OVAL:
+                d.fillOval(a, b, c, e);
+                break;
+            case DRAW_LINE:
+                d.drawLine(a, b, c, e);
+                break;
+            case DRAW_RECTANGLE:
+                d.drawRectangle(a, b, c, e);
+                break;
+            case FILL_RECTANGLE:
+                d.fillRectangle(a, b, c, e);
+                break;
+            case DRAW_POLYGON:
+                d.drawPolygon((Polygon) object);
+                break;
+            case FILL_POLYGON:
+                d.fillPolygon((Polygon) object);
+                break;
+            case DRAW_TEXT:
+                d.drawText(a, b, (String) object, c);
+                break;
+            case SET_COLOR:
+                d.setColor((Color) object);
+                break;
+            default:
+                throw new IllegalStateException("unknown op code " + op);
+        }
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        add(DRAW_CIRCLE, x, y, r, 0, null);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        add(FILL_CIRCLE, x, y, r, 0, null);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        add(DRAW_OVAL, x, y, w, h, null);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        add(FILL_OVAL, x, y, w, h, null);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        add(DRAW_LINE, x1, y1, x2, y2, null);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        add(DRAW_RECTANGLE, x, y, w, h, null);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        add(FILL_RECTANGLE, x, y, w, h, null);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        // The caller may change the polygon after drawing it, so keep a copy.
+        add(DRAW_POLYGON, 0, 0, 0, 0, new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        add(FILL_POLYGON, 0, 0, 0, 0, new Polygon(p.xpoints, p.ypoints, p.npoints));
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        add(DRAW_TEXT, x, y, fontSize, 0, s);
+    }
+
+    @Override
+    public void setColor(Color color) {
+        add(SET_COLOR, 0, 0, 0, 0, color);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
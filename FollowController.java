@@ -0,0 +1,41 @@
+/**
+ * The FollowController class is a simple PaddleController that keeps the middle of the paddle under the
+ * lowest ball that is falling. It reacts only to where the ball is now, not to where it will be, so it
+ * serves as a baseline for smarter controllers.
+ */
+public class FollowController implements PaddleController {
+
+    private final int deadZone;
+
+    /**
+     * Constructs a controller that leaves the paddle where it is while the ball is close enough to its middle.
+     *
+     * @param deadZone how far the ball may be from the middle of the paddle before it moves
+     */
+    public FollowController(int deadZone) {
+        this.deadZone = deadZone;
+    }
+
+    @Override
+    public int keys(Game game) {
+        int lowest = -1;
+        for (int i = 0; i < game.getBallCount(); i++) {
+            if (game.getBallDy(i) > 0 && (lowest < 0 || game.getBallY(i) > game.getBallY(lowest))) {
+                lowest = i;
+            }
+        }
+        if (lowest < 0) {
+            return 0;
+        }
+        Rectangle paddle = game.getPaddle().getCollisionRectangle();
+        double middle = (paddle.getTopX() + paddle.getBottomX()) / 2.0;
+        double target = game.getBallX(lowest);
+        if (target < middle - deadZone) {
+            return ReplayKeyboard.LEFT;
+        }
+        if (target > middle + deadZone) {
+            return ReplayKeyboard.RIGHT;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/**
+ * The FrameArena class hands out the Point, Line and CollisionInfo instances that only live for one tick,
+ * such as the results of the object-returning collision queries, and takes them all back at once when the
+ * tick ends. The instances are recycled from tick to tick, so a game that asks for the same temporaries every
+ * tick stops allocating them once the arena has grown to fit a tick.
+ * <p>
+ * Nothing handed out may be used after the reset that ends its tick, since it is then handed out again.
+ * Start the game with -Darkanoid.arenaChecks=true to catch such escapes: the arena then hands out fresh
+ * instances that throw an IllegalStateException when used after their tick ended, instead of recycling them.
+ * CHECKS is a constant, so without the flag the checks are compiled away. An arena is not thread safe.
+ */
+public class FrameArena {
+
+    /**
+     * Whether instances are checked for use after their tick ended.
+     */
+    public static final boolean CHECKS = Boolean.getBoolean("arkanoid.arenaChecks");
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Point[] points = new Point[INITIAL_CAPACITY];
+    private Line[] lines = new Line[INITIAL_CAPACITY];
+    private CollisionInfo[] infos = new CollisionInfo[INITIAL_CAPACITY];
+    private int pointCount;
+    private int lineCount;
+    private int infoCount;
+    // The number of the current tick, starting at 1, so checked instances can tell whether theirs has ended.
+    private int frame = 1;
+
+    /**
+     * Gets a point that is valid until the next reset.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the point
+     */
+    public Point point(double x, double y) {
+        if (CHECKS) {
+            pointCount++;
+            return new CheckedPoint(this, x, y);
+        }
+        if (pointCount == points.length) {
+            points = Arrays.copyOf(points, pointCount * 2);
+        }
+        Point point = points[pointCount];
+        if (point == null) {
+            point = new Point(x, y);
+            points[pointCount] = point;
+        } else {
+            point.setLocation(x, y);
+        }
+        pointCount++;
+        return point;
+    }
+
+    /**
+     * Gets a line between two points of the arena that is valid until the next reset.
+     *
+     * @param startX the x-coordinate of the start of the line
+     * @param startY the y-coordinate of the start of the line
+     * @param endX   the x-coordinate of the end of the line
+     * @param endY   the y-coordinate of the end of the line
+     * @return the line
+     */
+    public Line line(double startX, double startY, double endX, double endY) {
+        if (CHECKS) {
+            // The line reads its points for nearly everything, and they are checked.
+            lineCount++;
+            return new Line(new CheckedPoint(this, startX, startY), new CheckedPoint(this, endX, endY));
+        }
+        if (lineCount == lines.length) {
+            lines = Arrays.copyOf(lines, lineCount * 2);
+        }
+        Line line = lines[lineCount];
+        if (line == null) {
+            // A recycled line owns its points, which are not handed out on their own.
+            line = new Line(new Point(startX, startY), new Point(endX, endY));
+            lines[lineCount] = line;
+        } else {
+            line.set(startX, startY, endX, endY);
+        }
+        lineCount++;
+        return line;
+    }
+
+    /**
+     * Gets an empty CollisionInfo, owning its collision point, that is valid until the next reset.
+     *
+     * @return the collision info
+     */
+    public CollisionInfo collisionInfo() {
+        if (CHECKS) {
+            infoCount++;
+            return new CheckedCollisionInfo(this, new CheckedPoint(this, 0, 0));
+        }
+        if (infoCount == infos.length) {
+            infos = Arrays.copyOf(infos, infoCount * 2);
+        }
+        CollisionInfo info = infos[infoCount];
+        if (info == null) {
+            info = new CollisionInfo();
+            infos[infoCount] = info;
+        } else {
+            info.set(0, 0, null);
+        }
+        infoCount++;
+        return info;
+    }
+
+    /**
+     * Ends the current tick, taking back everything handed out during it.
+     */
+    public void reset() {
+        pointCount = 0;
+        lineCount = 0;
+        infoCount = 0;
+        frame++;
+    }
+
+    /**
+     * Gets the number of instances handed out since the last reset.
+     *
+     * @return the number of points, lines and collision infos handed out
+     */
+    public int size() {
+        return pointCount + lineCount + infoCount;
+    }
+
+    /**
+     * Throws if an instance handed out during the given tick is used after it ended.
+     *
+     * @param issued the tick the instance was handed out in
+     */
+    private void checkLive(int issued) {
+        if (issued != frame) {
+            throw new IllegalStateException("an instance from tick " + issued
+                    + " of the frame arena is used in tick " + frame);
+        }
+    }
+
+    /**
+     * A point handed out while checks are on, which throws when used after its tick ended.
+     */
+    private static final class CheckedPoint extends Point {
+
+        private final FrameArena arena;
+        private final int issued;
+
+        /**
+         * Constructs a point of the current tick of an arena.
+         *
+         * @param arena the arena handing out the point
+         * @param x     the x-coordinate of the point
+         * @param y     the y-coordinate of the point
+         */
+        CheckedPoint(FrameArena arena, double x, double y) {
+            super(x, y);
+            this.arena = arena;
+            this.issued = arena.frame;
+        }
+
+        @Override
+        public double getX() {
+            arena.checkLive(issued);
+            return super.getX();
+        }
+
+        @Override
+        public double getY() {
+            arena.checkLive(issued);
+            return super.getY();
+        }
+
+        @Override
+        public void setLocation(double newX, double newY) {
+            arena.checkLive(issued);
+            super.setLocation(newX, newY);
+        }
+
+        @Override
+        public void updateX(int speed) {
+            arena.checkLive(issued);
+            super.updateX(speed);
+        }
+    }
+
+    /**
+     * A collision info handed out while checks are on, which throws when used after its tick ended.
+     */
+    private static final class CheckedCollisionInfo extends CollisionInfo {
+
+        private final FrameArena arena;
+        private final int issued;
+
+        /**
+         * Constructs a collision info of the current tick of an arena.
+         *
+         * @param arena the arena handing out the collision info
+         * @param point the collision point, also from the arena
+         */
+        CheckedCollisionInfo(FrameArena arena, Point point) {
+            super(point, null);
+            this.arena = arena;
+            this.issued = arena.frame;
+        }
+
+        @Override
+        public Point collisionPoint() {
+            arena.checkLive(issued);
+            return super.collisionPoint();
+        }
+
+        @Override
+        public Collidable collisionObject() {
+            arena.checkLive(issued);
+            return super.collisionObject();
+        }
+
+        @Override
+        public void set(Point point, Collidable object) {
+            arena.checkLive(issued);
+            super.set(point, object);
+        }
+    }
+}
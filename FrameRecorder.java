@@ -0,0 +1,226 @@
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.imageio.ImageIO;
+
+/**
+ * The FrameRecorder class writes rendered frames to disk on a background thread, so encoding a frame does not
+ * hold up the game. A submitted frame is copied into a buffer and handed to the encoder thread, and the image
+ * can be drawn on again right away.
+ * <p>
+ * The frames are written either as numbered PNG files, frame-000000.png and up, or as one file, frames.rgb,
+ * holding the pixels of every frame as 24-bit RGB, row by row, which ffmpeg reads with
+ * "-f rawvideo -pixel_format rgb24 -video_size WIDTHxHEIGHT".
+ * The buffers come from a small pool, so when the encoder falls behind, submit waits for it instead of
+ * holding more and more frames in memory. A failure of the encoder is thrown by the next submit or by close.
+ */
+public class FrameRecorder implements Closeable {
+
+    /**
+     * The formats frames can be written in.
+     */
+    public enum Format {
+        /**
+         * One PNG file per frame.
+         */
+        PNG,
+        /**
+         * One file of raw 24-bit RGB frames.
+         */
+        RAW
+    }
+
+    private static final int BUFFERS = 4;
+    // Handed to the encoder by close to stop it once it has written every frame before it.
+    private static final int[] END = new int[0];
+
+    private final Path directory;
+    private final Format format;
+    private final int width;
+    private final int height;
+    private final BlockingQueue<int[]> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final BlockingQueue<int[]> pending = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final Thread encoder;
+    private final OutputStream raw;
+    private volatile Throwable failure;
+    private volatile long framesWritten;
+    private boolean closed;
+
+    /**
+     * Creates a recorder writing frames of the given size into a directory, creating the directory if needed.
+     *
+     * @param directory the directory to write the frames to
+     * @param format    the format to write the frames in
+     * @param width     the width of the frames
+     * @param height    the height of the frames
+     * @throws IOException if the directory or the raw file cannot be created
+     */
+    public FrameRecorder(Path directory, Format format, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("frame size must be positive: " + width + "x" + height);
+        }
+        this.directory = directory;
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        Files.createDirectories(directory);
+        this.raw = format == Format.RAW
+                ? new BufferedOutputStream(Files.newOutputStream(directory.resolve("frames.rgb")), 1 << 16)
+                : null;
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(new int[width * height]);
+        }
+        this.encoder = new Thread(this::encode, "frame-encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    /**
+     * Gets the number of frames written to disk so far.
+     *
+     * @return the number of frames written
+     */
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    /**
+     * Copies a frame and queues it for writing. Waits if every buffer is still queued.
+     *
+     * @param image the frame, of the size of the recorder
+     * @throws IOException if an earlier frame could not be written, or the wait was interrupted
+     */
+    public void submit(BufferedImage image) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("the recorder is closed");
+        }
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException("frame size " + image.getWidth() + "x" + image.getHeight()
+                    + " differs from " + width + "x" + height);
+        }
+        checkFailure();
+        int[] pixels;
+        try {
+            pixels = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the frame encoder");
+        }
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            // Reads the pixels straight from the raster, without converting them one by one.
+            image.getRaster().getDataElements(0, 0, width, height, pixels);
+        } else {
+            image.getRGB(0, 0, width, height, pixels, 0, width);
+        }
+        pending.add(pixels);
+    }
+
+    /**
+     * Waits for every submitted frame to be written and closes the recorder.
+     *
+     * @throws IOException if a frame could not be written, or the wait was interrupted
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.add(END);
+        try {
+            encoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the frame encoder");
+        } finally {
+            if (raw != null) {
+                raw.close();
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Throws the failure of the encoder, if it failed.
+     *
+     * @throws IOException the failure of the encoder
+     */
+    private void checkFailure() throws IOException {
+        Throwable e = failure;
+        if (e != null) {
+            throw new IOException("a frame could not be written", e);
+        }
+    }
+
+    /**
+     * Runs the encoder thread: writes the queued frames in order and returns their buffers, until close.
+     * Any failure is kept for submit and close to throw, and every buffer is returned whether or not its frame
+     * was written, so submit never waits for a buffer forever. After a failure the remaining frames are dropped.
+     */
+    private void encode() {
+        BufferedImage frame = format == Format.PNG
+                ? new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+                : null;
+        byte[] row = format == Format.RAW ? new byte[width * 3] : null;
+        long index = 0;
+        while (true) {
+            int[] pixels;
+            try {
+                pixels = pending.take();
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("the frame encoder was interrupted");
+                return;
+            }
+            if (pixels == END) {
+                return;
+            }
+            try {
+                if (failure == null) {
+                    if (frame != null) {
+                        frame.getRaster().setDataElements(0, 0, width, height, pixels);
+                        Path file = directory.resolve(String.format("frame-%06d.png", index));
+                        if (!ImageIO.write(frame, "png", file.toFile())) {
+                            throw new IOException("no PNG writer is available");
+                        }
+                    } else {
+                        writeRaw(pixels, row);
+                    }
+                    index++;
+                    framesWritten = index;
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                free.add(pixels);
+            }
+        }
+    }
+
+    /**
+     * Writes one frame to the raw file as 24-bit RGB.
+     *
+     * @param pixels the pixels of the frame
+     * @param row    a buffer for one row of the frame
+     * @throws IOException if the frame cannot be written
+     */
+    private void writeRaw(int[] pixels, byte[] row) throws IOException {
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0, b = 0; x < width; x++) {
+                int rgb = pixels[offset + x];
+                row[b++] = (byte) (rgb >> 16);
+                row[b++] = (byte) (rgb >> 8);
+                row[b++] = (byte) rgb;
+            }
+            raw.write(row);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.Arrays;
+
+/**
+ * The FrameStats class records how long the frames of the game loop take, split into the time spent
+ * on simulation ticks and the time spent rendering. It keeps the most recent samples of every kind
+ * in fixed size windows and can report percentiles over them at any time.
+ * Recording a sample does not allocate; only the queries do.
+ */
+public class FrameStats {
+
+    private final Window frameTime;
+    private final Window tickTime;
+    private final Window renderTime;
+    private long frames;
+    private long ticks;
+    private long droppedTicks;
+
+    /**
+     * Constructs empty frame stats that keep the given number of most recent samples of every kind.
+     *
+     * @param windowSize the number of samples kept for frame, tick and render times
+     */
+    public FrameStats(int windowSize) {
+        this.frameTime = new Window(windowSize);
+        this.tickTime = new Window(windowSize);
+        this.renderTime = new Window(windowSize);
+    }
+
+    /**
+     * Records the duration of a whole frame, including ticks, rendering and sleeping.
+     *
+     * @param nanos the duration of the frame in nanoseconds
+     */
+    public void recordFrame(long nanos) {
+        frameTime.record(nanos);
+        frames++;
+    }
+
+    /**
+     * Records the duration of a single simulation tick.
+     *
+     * @param nanos the duration of the tick in nanoseconds
+     */
+    public void recordTick(long nanos) {
+        tickTime.record(nanos);
+        ticks++;
+    }
+
+    /**
+     * Records the duration of rendering a frame.
+     *
+     * @param nanos the duration of rendering in nanoseconds
+     */
+    public void recordRender(long nanos) {
+        renderTime.record(nanos);
+    }
+
+    /**
+     * Records simulation ticks that were skipped because the loop fell too far behind.
+     *
+     * @param count the number of ticks skipped
+     */
+    public void recordDroppedTicks(long count) {
+        droppedTicks += count;
+    }
+
+    /**
+     * Gets the window of frame durations.
+     *
+     * @return the frame durations
+     */
+    public Window frameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Gets the window of simulation tick durations.
+     *
+     * @return the tick durations
+     */
+    public Window tickTime() {
+        return tickTime;
+    }
+
+    /**
+     * Gets the window of render durations.
+     *
+     * @return the render durations
+     */
+    public Window renderTime() {
+        return renderTime;
+    }
+
+    /**
+     * Gets the total number of frames recorded.
+     *
+     * @return the number of frames
+     */
+    public long frames() {
+        return frames;
+    }
+
+    /**
+     * Gets the total number of simulation ticks recorded.
+     *
+     * @return the number of ticks
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the total number of simulation ticks skipped to catch up.
+     *
+     * @return the number of dropped ticks
+     */
+    public long droppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Returns a one line summary of the p50, p99 and max of every window, in microseconds.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return "frame " + frameTime + ", tick " + tickTime + ", render " + renderTime
+                + ", frames " + frames + ", ticks " + ticks + ", dropped ticks " + droppedTicks;
+    }
+
+    /**
+     * A ring buffer holding the most recent durations of one kind.
+     */
+    public static final class Window {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        private Window(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("window size must be positive: " + capacity);
+            }
+            this.samples = new long[capacity];
+        }
+
+        private void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (size < samples.length) {
+                size++;
+            }
+        }
+
+        /**
+         * Gets the number of samples in the window.
+         *
+         * @return the number of samples
+         */
+        public int count() {
+            return size;
+        }
+
+        /**
+         * Gets a percentile of the samples in the window, using the nearest rank.
+         *
+         * @param percent the percentile, between 0 and 100
+         * @return the percentile in nanoseconds, or 0 if the window is empty
+         */
+        public long percentile(double percent) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percent / 100 * size);
+            return sorted[Math.min(Math.max(rank, 1), size) - 1];
+        }
+
+        /**
+         * Gets the median of the samples in the window.
+         *
+         * @return the median in nanoseconds
+         */
+        public long p50() {
+            return percentile(50);
+        }
+
+        /**
+         * Gets the 99th percentile of the samples in the window.
+         *
+         * @return the 99th percentile in nanoseconds
+         */
+        public long p99() {
+            return percentile(99);
+        }
+
+        /**
+         * Gets the largest sample in the window.
+         *
+         * @return the largest sample in nanoseconds, or 0 if the window is empty
+         */
+        public long max() {
+            long max = 0;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, samples[i]);
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %.1f us / p99 %.1f us / max %.1f us", p50() / 1e3, p99() / 1e3, max() / 1e3);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import biuoop.DrawSurface;
+import biuoop.KeyboardSensor;
 import biuoop.Sleeper;
 
 /**
@@ -8,9 +14,108 @@ import biuoop.Sleeper;
  */
 public class Game {
 
+    private static final int TICKS_PER_SECOND = 60;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NANOS_PER_TICK = 1000000000L / TICKS_PER_SECOND;
+    // A frame never accounts for more than a quarter second, and never runs more than this many ticks.
+    private static final long MAX_FRAME_NANOS = 250 * NANOS_PER_MILLI;
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    // The render thread draws at most two frames per tick.
+    private static final long MIN_FRAME_NANOS = NANOS_PER_TICK / 2;
+    // About ten seconds of frames at 60 frames per second.
+    private static final int STATS_WINDOW = 600;
+    // The seed turns the starting direction of every ball by up to this many degrees either way.
+    private static final double MAX_LAUNCH_TURN = 15;
+    // Balls beyond the first two are small and start on a grid in the empty part of the board, wrapping
+    // around onto the same places when there are more balls than places.
+    private static final int EXTRA_BALL_RADIUS = 5;
+    private static final int EXTRA_BALL_SPACING = 12;
+    private static final int EXTRA_BALL_COLUMNS = 60;
+    private static final int EXTRA_BALL_ROWS = 25;
+    private static final int EXTRA_BALL_LEFT = 46;
+    private static final int EXTRA_BALL_TOP = 160;
+
     private SpriteCollection sprites;
     private GameEnvironment environment;
     private biuoop.GUI gui;
+    private ScriptedKeyboard script;
+    private ForkJoinPool physicsPool;
+    private FrameStats stats = new FrameStats(STATS_WINDOW);
+    // The temporary points, lines and collision infos of the current tick.
+    private final FrameArena frameArena = new FrameArena();
+    private BlockRemover blockRemover;
+    private DirtyRectRenderer renderer;
+    private Level level;
+    private long seed = new Random().nextLong();
+    private long tick;
+    private int destructibleBlocks;
+    private boolean renderBatching;
+    private boolean aabbTree;
+    private int continuousBounces;
+    private int startingBalls = 2;
+    // The objects whose state is saved in a GameState, in the order they were created.
+    private Paddle paddle;
+    private List<Block> blocks = new ArrayList<>();
+    private List<Ball> balls = new ArrayList<>();
+    private BallSystem ballSystem;
+    // While recording, the paddle reads the keys sampled from the live keyboard once per tick.
+    private ReplayRecorder recorder;
+    private FrameRecorder frameCapture;
+    private PaddleController controller;
+    private ReplayKeyboard controllerKeyboard;
+    private KeyboardSensor liveKeyboard;
+    private ReplayKeyboard recordedKeyboard;
+    // Set by the simulation thread of run when it dies, so the render loop can throw it.
+    private volatile Throwable simulationFailure;
+
+    /**
+     * Constructs a game that updates all of its sprites on the calling thread.
+     */
+    public Game() {
+        this(null);
+    }
+
+    /**
+     * Constructs a game whose balls are moved in parallel on the given pool.
+     * The collision queries of the balls run on the pool, and hits are applied in a fixed order afterwards.
+     *
+     * @param physicsPool the pool to run the ball physics on, or null to run it on the calling thread
+     */
+    public Game(ForkJoinPool physicsPool) {
+        this.physicsPool = physicsPool;
+    }
+
+    /**
+     * Checks whether the balls of the game are moved in parallel on a pool.
+     *
+     * @return true if the game was constructed with a physics pool
+     */
+    public boolean hasPhysicsPool() {
+        return this.physicsPool != null;
+    }
+
+    /**
+     * Sets the number of balls of the next initialized game. The first two start in the middle of the board,
+     * and any further ones are smaller and start spread over the empty part of the board below the blocks,
+     * stacking on the same spots once a grid of 1500 is filled.
+     *
+     * @param count the number of balls, at least 1
+     */
+    public void setStartingBalls(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("a game needs at least one ball: " + count);
+        }
+        this.startingBalls = count;
+    }
+
+    /**
+     * Gets the number of balls the next initialized game starts with.
+     *
+     * @return the number of balls
+     */
+    public int getStartingBalls() {
+        return this.startingBalls;
+    }
 
     /**
      * Adds a collidable object to the game environment.
@@ -30,15 +135,323 @@ public class Game {
         sprites.addSprite(s);
     }
 
+    /**
+     * Removes a collidable object from the game environment. The collidable is dropped at the end of the
+     * current tick, so it can still be hit until then.
+     *
+     * @param c the collidable object to be removed
+     */
+    public void removeCollidable(Collidable c) {
+        environment.removeCollidable(c);
+    }
+
+    /**
+     * Removes a sprite object from the game. The sprite is dropped from the sprite collection at the end of
+     * the current tick, and it is removed from the offscreen renderer: a removed block is cleared from its
+     * background, and a removed moving sprite is no longer drawn.
+     *
+     * @param s the sprite object to be removed
+     */
+    public void removeSprite(Sprite s) {
+        sprites.removeSprite(s);
+        if (renderer != null && s instanceof Block) {
+            renderer.removeStatic(s, ((Block) s).getCollisionRectangle());
+        } else if (renderer != null && s instanceof MovingSprite) {
+            renderer.removeMoving((MovingSprite) s);
+        }
+    }
+
+    /**
+     * Sets the level whose blocks are used by the next initialize, instead of the built-in layout.
+     *
+     * @param level the level to play, or null for the built-in layout
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Sets whether run collects every frame in a render batch and submits it to the GUI grouped by color,
+     * instead of drawing every sprite straight onto the GUI. This pays off on surfaces where changing the
+     * color is expensive.
+     *
+     * @param renderBatching whether to batch the drawing of every frame
+     */
+    public void setRenderBatching(boolean renderBatching) {
+        this.renderBatching = renderBatching;
+    }
+
+    /**
+     * Sets whether the next initialized game indexes its collidables in an AabbTree instead of a UniformGrid.
+     * The tree suits boards of mixed block sizes with a lot of empty space, the grid boards of even blocks.
+     * Equally close hits may be told apart differently, so a replay log records the index and is played back
+     * with it.
+     *
+     * @param aabbTree whether to use the tree
+     */
+    public void setAabbTree(boolean aabbTree) {
+        this.aabbTree = aabbTree;
+    }
+
+    /**
+     * Checks whether the next initialized game indexes its collidables in an AabbTree.
+     *
+     * @return true for the tree, false for the uniform grid
+     */
+    public boolean isAabbTree() {
+        return this.aabbTree;
+    }
+
+    /**
+     * Sets whether the balls of the next initialized game are moved with continuous collision detection,
+     * see Ball.setContinuousCollision. The balls bounce at different points than with the trajectory line,
+     * so a replay log records the setting and is played back with it.
+     *
+     * @param bounces the most bounces a single step may take, or 0 to use the trajectory line
+     */
+    public void setContinuousCollision(int bounces) {
+        this.continuousBounces = bounces;
+    }
+
+    /**
+     * Gets the most bounces a step of a ball may take with continuous collision detection.
+     *
+     * @return the most bounces per step, or 0 if the balls cast their trajectory lines
+     */
+    public int getContinuousCollision() {
+        return this.continuousBounces;
+    }
+
+    /**
+     * Lets a controller steer the paddle of the next initialized game instead of the keyboard.
+     * The controller decides the keys at the start of every tick, and they are recorded like real keys.
+     *
+     * @param paddleController the controller, or null to steer the paddle with the keyboard
+     */
+    public void setController(PaddleController paddleController) {
+        this.controller = paddleController;
+    }
+
+    /**
+     * Sets the seed used by the next initialize for the random block colors and for turning the starting
+     * direction of every ball, so games with different seeds play out differently.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the seed of the random block colors and starting ball directions.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Records the next initialized game into a replay log: the key state of every tick,
+     * and a snapshot of the game every snapshot interval. The recorder should be created for
+     * this game once it is set up.
+     *
+     * @param replayRecorder the recorder to write to, or null to stop recording
+     */
+    public void setRecorder(ReplayRecorder replayRecorder) {
+        this.recorder = replayRecorder;
+    }
+
+    /**
+     * Captures the frames drawn by runHeadless: every tick is drawn by an offscreen renderer, which only redraws
+     * what moved, and submitted to the frame recorder. The recorder must take 800x600 frames.
+     *
+     * @param frameRecorder the recorder to submit the frames to, or null to stop capturing
+     */
+    public void setFrameCapture(FrameRecorder frameRecorder) {
+        this.frameCapture = frameRecorder;
+    }
+
+    /**
+     * Gets the number of ticks run since the game was initialized.
+     *
+     * @return the current tick
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Gets the number of blocks destroyed since the game was initialized.
+     *
+     * @return the number of destroyed blocks
+     */
+    public int getRemovedBlocks() {
+        return this.blockRemover.getRemovedBlocks();
+    }
+
+    /**
+     * Checks if every block that can be destroyed has been destroyed.
+     *
+     * @return true if the board is cleared, false otherwise
+     */
+    public boolean isCleared() {
+        return getRemovedBlocks() >= this.destructibleBlocks;
+    }
+
+    /**
+     * Checks if a ball got past the paddle, with its center below the bottom of the paddle.
+     *
+     * @return true if a ball was lost, false otherwise
+     */
+    public boolean isBallLost() {
+        int bottom = this.paddle.getCollisionRectangle().getBottomY();
+        for (int i = 0; i < getBallCount(); i++) {
+            if (getBallY(i) > bottom) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the paddle of the game.
+     *
+     * @return the paddle
+     */
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    /**
+     * Gets the number of balls in the game.
+     *
+     * @return the number of balls
+     */
+    public int getBallCount() {
+        return this.ballSystem != null ? this.ballSystem.size() : this.balls.size();
+    }
+
+    /**
+     * Gets the x-coordinate of the center of a ball.
+     *
+     * @param index the index of the ball, from 0 to getBallCount() - 1
+     * @return the x-coordinate of the center
+     */
+    public double getBallX(int index) {
+        return this.ballSystem != null ? this.ballSystem.getX(index) : this.balls.get(index).getCenterX();
+    }
+
+    /**
+     * Gets the y-coordinate of the center of a ball.
+     *
+     * @param index the index of the ball, from 0 to getBallCount() - 1
+     * @return the y-coordinate of the center
+     */
+    public double getBallY(int index) {
+        return this.ballSystem != null ? this.ballSystem.getY(index) : this.balls.get(index).getCenterY();
+    }
+
+    /**
+     * Gets the change in x-coordinate per tick of a ball.
+     *
+     * @param index the index of the ball, from 0 to getBallCount() - 1
+     * @return the dx value of the velocity of the ball
+     */
+    public double getBallDx(int index) {
+        return this.ballSystem != null ? this.ballSystem.getDx(index) : this.balls.get(index).getVelocity().getX();
+    }
+
+    /**
+     * Gets the change in y-coordinate per tick of a ball.
+     *
+     * @param index the index of the ball, from 0 to getBallCount() - 1
+     * @return the dy value of the velocity of the ball
+     */
+    public double getBallDy(int index) {
+        return this.ballSystem != null ? this.ballSystem.getDy(index) : this.balls.get(index).getVelocity().getY();
+    }
+
+    /**
+     * Gets the radius of a ball.
+     *
+     * @param index the index of the ball, from 0 to getBallCount() - 1
+     * @return the radius of the ball
+     */
+    public int getBallSize(int index) {
+        return this.ballSystem != null ? this.ballSystem.getSize(index) : this.balls.get(index).getSize();
+    }
+
+    /**
+     * Gets the game environment holding the collidables of the game.
+     *
+     * @return the game environment
+     */
+    public GameEnvironment getEnvironment() {
+        return this.environment;
+    }
+
     /**
      * Initializes a new game, creating blocks, ball, paddle, and adding them to the game.
      */
     public void initialize() {
         this.gui = new biuoop.GUI("Arkanoid", 800, 600);  // Initialize the game GUI.
-        Random random = new Random();
+        this.script = null;
+        createObjects(gui.getKeyboardSensor());
+    }
+
+    /**
+     * Initializes a new game without a GUI, with the paddle controlled by a scripted keyboard.
+     * A game initialized this way can only be run with runHeadless.
+     *
+     * @param keyboard the scripted keyboard controlling the paddle
+     */
+    public void initializeHeadless(ScriptedKeyboard keyboard) {
+        initializeHeadless((KeyboardSensor) keyboard);
+        this.script = keyboard;
+    }
+
+    /**
+     * Initializes a new game without a GUI, with the paddle controlled by a keyboard that the caller
+     * updates between calls to step.
+     *
+     * @param keyboard the keyboard controlling the paddle
+     */
+    public void initializeHeadless(KeyboardSensor keyboard) {
+        this.gui = null;
+        this.script = null;
+        createObjects(keyboard);
+    }
+
+    /**
+     * Creates the blocks, balls and paddle of a new game and adds them to the game.
+     *
+     * @param keyboard the keyboard sensor controlling the paddle
+     */
+    private void createObjects(KeyboardSensor keyboard) {
+        Random random = new Random(seed);
         biuoop.Sleeper sleeper = new biuoop.Sleeper();
         this.sprites = new SpriteCollection();  // Initialize the sprite collection.
-        this.environment = new GameEnvironment();  // Initialize the game environment.
+        // Initialize the game environment.
+        this.environment = aabbTree ? new GameEnvironment(new AabbTree()) : new GameEnvironment();
+        this.frameArena.reset();
+        this.environment.setFrameArena(this.frameArena);
+        this.blockRemover = new BlockRemover(this);
+        this.renderer = null;
+        this.tick = 0;
+        this.blocks = new ArrayList<>();
+        this.balls = new ArrayList<>();
+        this.ballSystem = null;
+        this.controllerKeyboard = null;
+        if (controller != null) {
+            this.controllerKeyboard = new ReplayKeyboard();
+            keyboard = controllerKeyboard;
+        }
+        if (recorder != null) {
+            this.liveKeyboard = keyboard;
+            this.recordedKeyboard = new ReplayKeyboard();
+            keyboard = recordedKeyboard;
+        }
         Rectangle screen = new Rectangle(new Point(0, 0), 800, 600);
         Block frame = new Block(screen);  // Create a block representing the game frame.
 
@@ -46,14 +459,19 @@ public class Game {
         int range = 700;
 
         // Create blocks and add them to the game.
-        for (int i = 0; i < 6; i++) {
+        if (level != null) {
+            blocks.addAll(level.addToGame(this, blockRemover));
+        }
+        for (int i = 0; level == null && i < 6; i++) {
             Color color = new Color(random.nextInt(255), random.nextInt(255), random.nextInt(255));
             while (x2 <= range - 50 * i) {
                 Point p1 = new Point(x1, y1);
                 Point p2 = new Point(x2, y2);
                 Rectangle rect = new Rectangle(p1, p2, color);
-                Block block = new Block(rect);
+                Block block = new Block(rect, 1);
+                block.addHitListener(blockRemover);
                 block.addToGame(this);
+                blocks.add(block);
                 x1 += 50;
                 x2 += 50;
             }
@@ -64,44 +482,346 @@ public class Game {
         }
 
         // Create balls and paddle and add them to the game.
-        Ball ball1 = new Ball(400, 300, 15, Color.pink, environment);
-        Ball ball2 = new Ball(400, 350, 15, Color.pink, environment);
-        ball1.setVelocity(1, 4);
-        ball2.setVelocity(-1, -4);
         Point p1 = new Point(360, 500);
         Point p2 = new Point(440, 530);
         Rectangle p = new Rectangle(p1, p2, Color.lightGray);
-        Paddle paddle = new Paddle(gui, p);
-        ball1.addToGame(this);
-        ball2.addToGame(this);
+        this.paddle = new Paddle(keyboard, p);
+        double[] ballX = new double[startingBalls];
+        double[] ballY = new double[startingBalls];
+        int[] ballRadius = new int[startingBalls];
+        Velocity[] launches = new Velocity[startingBalls];
+        for (int i = 0; i < startingBalls; i++) {
+            if (i < 2) {
+                ballX[i] = 400;
+                ballY[i] = 300 + 50 * i;
+                ballRadius[i] = 15;
+                launches[i] = i == 0 ? launch(random, 1, 4) : launch(random, -1, -4);
+            } else {
+                int j = i - 2;
+                ballX[i] = EXTRA_BALL_LEFT + (j % EXTRA_BALL_COLUMNS) * EXTRA_BALL_SPACING;
+                ballY[i] = EXTRA_BALL_TOP + (j / EXTRA_BALL_COLUMNS % EXTRA_BALL_ROWS) * EXTRA_BALL_SPACING;
+                ballRadius[i] = EXTRA_BALL_RADIUS;
+                launches[i] = launch(random, j % 2 == 0 ? 1 : -1, -4);
+            }
+        }
+        if (physicsPool == null) {
+            // The collider runs after the balls, so it sees where they moved.
+            BallCollider collider = new BallCollider();
+            for (int i = 0; i < startingBalls; i++) {
+                Ball ball = new Ball(ballX[i], ballY[i], ballRadius[i], Color.pink, environment);
+                ball.setVelocity(launches[i]);
+                ball.setContinuousCollision(continuousBounces);
+                ball.addToGame(this);
+                balls.add(ball);
+                collider.addBall(ball);
+            }
+            collider.addToGame(this);
+        } else {
+            // The balls live in a ball system, which steps them on the pool.
+            BallSystem system = new BallSystem(environment);
+            system.setPool(physicsPool);
+            system.setBallCollisions(true);
+            system.setContinuousCollision(continuousBounces);
+            for (int i = 0; i < startingBalls; i++) {
+                system.addBall(ballX[i], ballY[i], ballRadius[i], Color.pink, launches[i]);
+            }
+            system.addToGame(this);
+            this.ballSystem = system;
+        }
         frame.addToGame(this, true);
         paddle.addToGame(this);
+        this.destructibleBlocks = 0;
+        for (Block block : blocks) {
+            if (block.getHitPoints() != Block.INDESTRUCTIBLE) {
+                this.destructibleBlocks++;
+            }
+        }
     }
 
     /**
-     * Runs the game animation loop.
+     * Gets the timing statistics of the game loop.
+     *
+     * @return the frame, tick and render timings recorded so far
+     */
+    public FrameStats getFrameStats() {
+        return this.stats;
+    }
+
+    /**
+     * Creates a renderer that draws this game into an offscreen image, keeping the blocks in a cached
+     * background and redrawing only the areas the balls and paddle move through. The frames are drawn into
+     * a volatile image when a display is available. Sprites removed from the game are removed from the
+     * renderer until another one is created.
+     *
+     * @return a renderer holding the current sprites of the game
+     */
+    public DirtyRectRenderer createOffscreenRenderer() {
+        DirtyRectRenderer renderer = new DirtyRectRenderer(800, 600, Color.blue, true);
+        renderer.addAll(this.sprites);
+        this.renderer = renderer;
+        return renderer;
+    }
+
+    /**
+     * Runs one simulation tick and records how long it took in the frame stats.
+     * While recording, the keys of the tick are sampled first, and a snapshot is taken every snapshot interval.
+     */
+    public void step() {
+        long tickStart = System.nanoTime();
+        if (this.controllerKeyboard != null) {
+            this.controllerKeyboard.setKeys(this.controller.keys(this));
+        }
+        if (this.recorder != null) {
+            try {
+                if (this.tick % this.recorder.getSnapshotInterval() == 0) {
+                    this.recorder.recordSnapshot(captureState());
+                }
+                int keys = ReplayKeyboard.keysOf(this.liveKeyboard);
+                this.recordedKeyboard.setKeys(keys);
+                this.recorder.recordTick(keys);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        this.sprites.notifyAllTimePassed();
+        if (this.script != null) {
+            this.script.nextTick();
+        }
+        // Collidables removed during the tick leave the environment once every sprite has moved.
+        this.environment.applyPendingRemovals();
+        this.tick++;
+        // Whatever the tick took from the arena is taken back, so only a tick's worth is ever held.
+        this.frameArena.reset();
+        if (Metrics.isRecording()) {
+            Metrics.REGISTRY.endFrame();
+        }
+        stats.recordTick(System.nanoTime() - tickStart);
+    }
+
+    /**
+     * Takes a snapshot of the paddle, balls and blocks of the game.
+     *
+     * @return the current state of the game
+     */
+    public GameState captureState() {
+        int count = this.ballSystem != null ? this.ballSystem.size() : this.balls.size();
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] dx = new double[count];
+        double[] dy = new double[count];
+        for (int i = 0; i < count; i++) {
+            Velocity v;
+            if (this.ballSystem != null) {
+                x[i] = this.ballSystem.getX(i);
+                y[i] = this.ballSystem.getY(i);
+                v = this.ballSystem.getVelocity(i);
+            } else {
+                Point center = this.balls.get(i).getCenter();
+                x[i] = center.getX();
+                y[i] = center.getY();
+                v = this.balls.get(i).getVelocity();
+            }
+            dx[i] = v.getX();
+            dy[i] = v.getY();
+        }
+        int[] hitPoints = new int[this.blocks.size()];
+        for (int i = 0; i < hitPoints.length; i++) {
+            hitPoints[i] = this.blocks.get(i).getHitPoints();
+        }
+        return new GameState(this.tick, this.paddle.getCollisionRectangle().getTopX(), x, y, dx, dy, hitPoints);
+    }
+
+    /**
+     * Puts a newly initialized game into a saved state. The game must have been initialized
+     * with the same seed and level as the game the state was captured from, and not run yet.
+     *
+     * @param state the state to restore
+     */
+    public void restoreState(GameState state) {
+        int count = this.ballSystem != null ? this.ballSystem.size() : this.balls.size();
+        if (this.tick != 0) {
+            throw new IllegalStateException("a state can only be restored into a new game");
+        }
+        if (state.balls() != count || state.blocks() != this.blocks.size()) {
+            throw new IllegalArgumentException("the state was captured from a different game");
+        }
+        this.paddle.setX(state.paddleX());
+        for (int i = 0; i < count; i++) {
+            if (this.ballSystem != null) {
+                this.ballSystem.setPosition(i, state.ballX(i), state.ballY(i));
+                this.ballSystem.setVelocity(i, state.ballDx(i), state.ballDy(i));
+            } else {
+                this.balls.get(i).setCenter(state.ballX(i), state.ballY(i));
+                this.balls.get(i).setVelocity(state.ballDx(i), state.ballDy(i));
+            }
+        }
+        for (int i = 0; i < state.blocks(); i++) {
+            Block block = this.blocks.get(i);
+            block.setHitPoints(state.hitPoints(i));
+            // Destroyed blocks go through the block remover, so they are removed and counted as in the game.
+            blockRemover.hitEvent(block);
+        }
+        this.environment.applyPendingRemovals();
+        this.tick = state.tick();
+    }
+
+    /**
+     * Runs a fixed number of simulation ticks as fast as possible, without a GUI and without sleeping.
+     * Tick durations are recorded in the frame stats like in run.
+     * While capturing frames, every tick is drawn by an offscreen renderer and submitted to the frame recorder
+     * whether or not draw is set, and the render time includes copying the frame for the recorder.
+     *
+     * @param ticks the number of ticks to run
+     * @param draw  whether to also draw every tick on a surface that discards the drawing
+     * @return the number of ticks per second that were achieved
+     */
+    public double runHeadless(long ticks, boolean draw) {
+        DirtyRectRenderer capture = this.frameCapture != null ? createOffscreenRenderer() : null;
+        DrawSurface d = new NullDrawSurface(800, 600);
+        long start = System.nanoTime();
+        try {
+            for (long i = 0; i < ticks; i++) {
+                step();
+                if (capture != null) {
+                    long renderStart = System.nanoTime();
+                    this.frameCapture.submit(capture.render(0));
+                    stats.recordRender(System.nanoTime() - renderStart);
+                } else if (draw) {
+                    long renderStart = System.nanoTime();
+                    this.sprites.drawAllOn(d);
+                    stats.recordRender(System.nanoTime() - renderStart);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (capture != null) {
+                capture.dispose();
+                this.renderer = null;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return elapsed == 0 ? 0 : ticks * 1e9 / elapsed;
+    }
+
+    /**
+     * Runs the game animation loop, with the simulation and the rendering on separate threads.
+     * The simulation thread advances the game in fixed ticks of 1/60 second and publishes a snapshot of
+     * the sprites after every batch of ticks. The calling thread draws the latest snapshot in between its
+     * tick and the next one, so a slow frame never delays the physics and neither thread waits for the other.
+     * If the simulation thread fails, the window is closed and the failure is thrown from here.
+     *
+     * @throws IllegalStateException if the simulation thread failed, with its failure as the cause
      */
     public void run() {
         Sleeper sleeper = new Sleeper();
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
         Rectangle backGround = new Rectangle(new Point(0, 0), 800, 600);
         backGround.changeColor(Color.blue);
 
+        SnapshotExchange exchange = new SnapshotExchange(800, 600);
+        exchange.back().record(this.sprites, this.tick, System.nanoTime());
+        exchange.publish();
+        this.simulationFailure = null;
+        Thread simulation = new Thread(() -> {
+            try {
+                simulate(exchange);
+            } catch (Throwable t) {
+                simulationFailure = t;
+            }
+        }, "simulation");
+        simulation.setDaemon(true);
+        simulation.start();
+
+        MetricsOverlay overlay = Metrics.ENABLED ? new MetricsOverlay(Metrics.REGISTRY) : null;
+        RenderBatch batch = this.renderBatching ? new RenderBatch(800, 600) : null;
+        long previousFrameStart = 0;
         while (true) {
-            long startTime = System.currentTimeMillis();  // Start timing
+            Throwable failure = simulationFailure;
+            if (failure != null) {
+                gui.close();
+                throw new IllegalStateException("the simulation thread failed", failure);
+            }
+            long frameStart = System.nanoTime();  // Start timing
+            if (Metrics.isRecording() && previousFrameStart != 0) {
+                Metrics.FRAME_NANOS.record(frameStart - previousFrameStart);
+            }
+            previousFrameStart = frameStart;
+            WorldSnapshot snapshot = exchange.latest();
+            double alpha = (double) (frameStart - snapshot.getTickNanos()) / NANOS_PER_TICK;
 
             DrawSurface d = gui.getDrawSurface();
-            backGround.drawOn(d);
-            this.sprites.drawAllOn(d);
+            DrawSurface target = batch != null ? batch : d;
+            backGround.drawOn(target);
+            snapshot.drawOn(target, Math.max(0, Math.min(1, alpha)));
+            if (batch != null) {
+                batch.flush(d);
+            }
+            if (overlay != null) {
+                overlay.drawOn(d);
+            }
             gui.show(d);
-            this.sprites.notifyAllTimePassed();
+            long renderEnd = System.nanoTime();
+            stats.recordRender(renderEnd - frameStart);
+
+            // Timing, sleep until the next frame is due.
+            long nanosToNextFrame = MIN_FRAME_NANOS - (renderEnd - frameStart);
+            if (nanosToNextFrame >= NANOS_PER_MILLI) {
+                sleeper.sleepFor(nanosToNextFrame / NANOS_PER_MILLI);
+            }
+            stats.recordFrame(System.nanoTime() - frameStart);
+        }
+    }
+
+    /**
+     * Creates the starting velocity of a ball, turned by a random angle of up to MAX_LAUNCH_TURN degrees
+     * either way, at the same speed.
+     *
+     * @param random the random numbers of the game's seed
+     * @param dx     the change in x-coordinate per step before turning
+     * @param dy     the change in y-coordinate per step before turning
+     * @return the turned velocity
+     */
+    private static Velocity launch(Random random, double dx, double dy) {
+        double turn = Math.toRadians((random.nextDouble() * 2 - 1) * MAX_LAUNCH_TURN);
+        double cos = Math.cos(turn);
+        double sin = Math.sin(turn);
+        return new Velocity(dx * cos - dy * sin, dx * sin + dy * cos);
+    }
+
+    /**
+     * Runs the simulation loop of run. Every pass runs the ticks that are due, up to a limit so a slow pass
+     * cannot snowball, publishes a snapshot of the sprites and sleeps until the next tick is due.
+     *
+     * @param exchange the exchange to publish the snapshots to
+     */
+    private void simulate(SnapshotExchange exchange) {
+        Sleeper sleeper = new Sleeper();
+        long previousTime = System.nanoTime();
+        long accumulator = 0;
+        while (true) {
+            long passStart = System.nanoTime();
+            accumulator += Math.min(passStart - previousTime, MAX_FRAME_NANOS);
+            previousTime = passStart;
+
+            // Run the ticks that are due, dropping the rest if the loop fell too far behind.
+            int ticks = 0;
+            while (accumulator >= NANOS_PER_TICK && ticks < MAX_TICKS_PER_FRAME) {
+                step();
+                accumulator -= NANOS_PER_TICK;
+                ticks++;
+            }
+            if (accumulator >= NANOS_PER_TICK) {
+                stats.recordDroppedTicks(accumulator / NANOS_PER_TICK);
+                accumulator %= NANOS_PER_TICK;
+            }
+            if (ticks > 0) {
+                exchange.back().record(this.sprites, this.tick, passStart - accumulator);
+                exchange.publish();
+            }
 
-            // Timing
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+            long nanosToNextTick = NANOS_PER_TICK - accumulator - (System.nanoTime() - passStart);
+            if (nanosToNextTick >= NANOS_PER_MILLI) {
+                sleeper.sleepFor(nanosToNextTick / NANOS_PER_MILLI);
             }
         }
     }
@@ -6,7 +6,12 @@
 // Roie Amsalem 322535436
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The GameEnvironment class represents the environment of the game, containing a list of collidable objects.
@@ -15,7 +20,57 @@ import java.util.List;
  */
 public class GameEnvironment {
 
+    // Most blocks are 50 pixels wide, so a slightly larger cell keeps a block in one or two cells.
+    private static final double DEFAULT_CELL_SIZE = 64;
+    // Ordered queries gather the candidates along the trajectory in pieces of this length.
+    private static final double PIECE_LENGTH = DEFAULT_CELL_SIZE;
+    // How far a hit may be off its exact distance from the rounding of intersection points.
+    private static final double PIECE_SLACK = 1e-6;
+
     private List<Collidable> objectsList = new ArrayList<>();
+    // The position of every collidable in objectsList, so it can be removed without searching.
+    private Map<Collidable, Integer> indices = new IdentityHashMap<>();
+    // When every collidable in objectsList was added, counting from 0, so snapshots can number them in that
+    // order however removals have moved them around the list.
+    private int[] addedAt = new int[16];
+    private int nextAdded;
+    // Removed during the current tick, in the order they were removed, and still in objectsList until applied.
+    private final List<Collidable> pendingRemovals = new ArrayList<>();
+    private final BroadPhase broadPhase;
+    private final List<Collidable> candidates = new ArrayList<>();
+    // Scratch point for the intersection with the collidable currently being tested.
+    private final Point hit = new Point(0, 0);
+    private final SweepHit sweepScratch = new SweepHit();
+    // The closest hit found by the last search of the candidates.
+    private final Point closestHit = new Point(0, 0);
+    private Collidable closestObject;
+    // Ordered queries gather the candidates nearest to the start of the trajectory first.
+    private boolean orderedQueries = true;
+    // Where the object-returning queries take their results from, or null to allocate them.
+    private FrameArena frameArena;
+    // Bumped when a collidable is added or removed, so a stale snapshot can be detected.
+    private int structureVersion;
+    // The collidables that were ever moved, which snapshots test where they are instead of indexing them.
+    private final Set<Collidable> movers = Collections.newSetFromMap(new IdentityHashMap<>());
+    private CollidableSnapshot snapshot;
+    private int snapshotVersion;
+    private int snapshotMovers;
+
+    /**
+     * Constructs an empty game environment indexed by a uniform grid.
+     */
+    public GameEnvironment() {
+        this(new UniformGrid(DEFAULT_CELL_SIZE));
+    }
+
+    /**
+     * Constructs an empty game environment indexed by the specified broad phase.
+     *
+     * @param broadPhase  the spatial index used to find the collidables near a trajectory
+     */
+    public GameEnvironment(BroadPhase broadPhase) {
+        this.broadPhase = broadPhase;
+    }
 
     /**
      * Adds a collidable object to the game environment.
@@ -23,7 +78,214 @@ public class GameEnvironment {
      * @param c  the collidable object to be added
      */
     public void addCollidable(Collidable c) {
+        int index = objectsList.size();
+        if (index == addedAt.length) {
+            addedAt = Arrays.copyOf(addedAt, index * 2);
+        }
+        addedAt[index] = nextAdded++;
+        indices.put(c, index);
         objectsList.add(c);
+        broadPhase.insert(c);
+        structureVersion++;
+    }
+
+    /**
+     * Removes a collidable object from the game environment. The collidable is dropped when
+     * applyPendingRemovals is called at the end of the current tick, so collidables can be removed while the
+     * balls are moving, and until then it can still be hit.
+     * Removing a collidable that is not in the environment has no effect.
+     *
+     * @param c  the collidable object to be removed
+     */
+    public void removeCollidable(Collidable c) {
+        pendingRemovals.add(c);
+    }
+
+    /**
+     * Drops all the collidables removed since the last call, in the order they were removed.
+     * The last collidable takes the place of a removed one in the list, so every removal takes constant time.
+     */
+    public void applyPendingRemovals() {
+        if (pendingRemovals.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < pendingRemovals.size(); i++) {
+            remove(pendingRemovals.get(i));
+        }
+        pendingRemovals.clear();
+    }
+
+    /**
+     * Drops a collidable right away, or does nothing if it is not in the environment.
+     *
+     * @param c  the collidable object to be dropped
+     */
+    private void remove(Collidable c) {
+        Integer index = indices.remove(c);
+        if (index == null) {
+            return;
+        }
+        Collidable last = objectsList.remove(objectsList.size() - 1);
+        if (last != c) {
+            objectsList.set(index, last);
+            addedAt[index] = addedAt[objectsList.size()];
+            indices.put(last, index);
+        }
+        broadPhase.remove(c);
+        movers.remove(c);
+        structureVersion++;
+    }
+
+    /**
+     * Sets whether collision queries visit the collidables in order of their distance along the trajectory.
+     * An ordered query stops as soon as no collidable left can be closer than the closest hit so far, which
+     * saves gathering and testing most of the collidables near a long trajectory across a dense board.
+     * Trajectories no longer than a grid cell, like the step of a ball, are searched the same either way,
+     * and the hits found are the same either way. Queries are ordered by default.
+     *
+     * @param ordered  true to search in order of distance, false to test every candidate
+     */
+    public void setOrderedQueries(boolean ordered) {
+        this.orderedQueries = ordered;
+    }
+
+    /**
+     * Sets the arena that the object-returning queries, and the balls in this environment, take their
+     * temporary points, lines and collision infos from. Their results are then only valid until the arena
+     * is reset, which the owner of the arena does at the end of every tick.
+     *
+     * @param arena  the arena, or null to allocate the results
+     */
+    public void setFrameArena(FrameArena arena) {
+        this.frameArena = arena;
+    }
+
+    /**
+     * Gets the arena the temporaries of this environment come from.
+     *
+     * @return the arena, or null if the temporaries are allocated
+     */
+    public FrameArena getFrameArena() {
+        return frameArena;
+    }
+
+    /**
+     * Gets a number that changes whenever a collidable is added or removed, but not when one moves.
+     * Callers caching results that depend on which collidables exist compare it to detect stale results.
+     *
+     * @return the structure version of the environment
+     */
+    public int getStructureVersion() {
+        return structureVersion;
+    }
+
+    /**
+     * Notifies the game environment that the collision rectangle of a collidable has moved.
+     *
+     * @param c  the collidable object that moved
+     */
+    public void updateCollidable(Collidable c) {
+        broadPhase.update(c);
+        movers.add(c);
+    }
+
+    /**
+     * Returns a read-only snapshot of the collidables that can be searched from several threads at once.
+     * Collidables that moved before are tested where they are at the time of the query, so the snapshot is
+     * rebuilt only when a collidable was added or removed, or moved for the first time, since the last call.
+     * The snapshot numbers the collidables in the order they were added, which removals do not change.
+     *
+     * @return a snapshot of the current collidables
+     */
+    public CollidableSnapshot snapshot() {
+        if (snapshot == null || snapshotVersion != structureVersion || snapshotMovers != movers.size()) {
+            snapshot = new CollidableSnapshot(inAddedOrder(), movers, DEFAULT_CELL_SIZE);
+            snapshotVersion = structureVersion;
+            snapshotMovers = movers.size();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lists the collidables in the order they were added. Removals move the last collidable into the freed
+     * place, so the list is sorted by when every collidable was added, packed with its place into one key.
+     *
+     * @return the collidables, in the order they were added
+     */
+    private List<Collidable> inAddedOrder() {
+        int n = objectsList.size();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (long) addedAt[i] << Integer.SIZE | i;
+        }
+        Arrays.sort(keys);
+        List<Collidable> ordered = new ArrayList<>(n);
+        for (long key : keys) {
+            ordered.add(objectsList.get((int) key));
+        }
+        return ordered;
+    }
+
+    /**
+     * Collects the collidables that may be hit by the ball along the trajectory.
+     * The ball only reacts to hits closer than its radius, so the trajectory box is grown by the radius.
+     *
+     * @param trajectory  the trajectory line of the ball
+     * @param ballRadius  the radius of the ball
+     * @return            the collidables near the trajectory
+     */
+    private List<Collidable> candidatesNear(Line trajectory, int ballRadius) {
+        // The trajectory starts at the truncated center of the ball, which can be up to a pixel off.
+        double radius = ballRadius + 1;
+        candidates.clear();
+        broadPhase.query(Math.min(trajectory.start.getX(), trajectory.end.getX()) - radius,
+                Math.min(trajectory.start.getY(), trajectory.end.getY()) - radius,
+                Math.max(trajectory.start.getX(), trajectory.end.getX()) + radius,
+                Math.max(trajectory.start.getY(), trajectory.end.getY()) + radius,
+                candidates);
+        return candidates;
+    }
+
+    /**
+     * Sweeps a moving circle against the collidables and finds the one it touches first.
+     *
+     * @param cx     the x-coordinate of the center of the circle
+     * @param cy     the y-coordinate of the center of the circle
+     * @param radius the radius of the circle
+     * @param vx     the change in x-coordinate per step
+     * @param vy     the change in y-coordinate per step
+     * @param maxT   the part of the step to sweep, between 0 and 1
+     * @param result receives the earliest hit
+     * @return true if the circle touches a collidable within the swept part of the step, false otherwise
+     */
+    public boolean sweepCircle(double cx, double cy, double radius, double vx, double vy, double maxT,
+                               SweepHit result) {
+        double endX = cx + vx * maxT;
+        double endY = cy + vy * maxT;
+        candidates.clear();
+        broadPhase.query(Math.min(cx, endX) - radius - 1, Math.min(cy, endY) - radius - 1,
+                Math.max(cx, endX) + radius + 1, Math.max(cy, endY) + radius + 1, candidates);
+        boolean found = false;
+        for (int i = 0; i < candidates.size(); i++) {
+            Collidable collidable = candidates.get(i);
+            double limit = found ? result.time() : maxT;
+            if (SweptCircle.sweep(collidable.getCollisionRectangle(), collidable, cx, cy, radius, vx, vy, limit,
+                    found ? sweepScratch : result)) {
+                if (found && sweepScratch.time() < result.time()) {
+                    result.set(sweepScratch.time(), sweepScratch.normalX(), sweepScratch.normalY(),
+                            sweepScratch.contactX(), sweepScratch.contactY(), sweepScratch.collidable());
+                }
+                found = true;
+            }
+        }
+        if (Metrics.isRecording()) {
+            Metrics.COLLISION_QUERIES.increment();
+            Metrics.INTERSECTION_TESTS.add(candidates.size());
+            if (found) {
+                Metrics.COLLISION_HITS.increment();
+            }
+        }
+        return found;
     }
 
     /**
@@ -33,48 +295,157 @@ public class GameEnvironment {
      * @param ball        the ball for which the collision is being checked
      * @return            a CollisionInfo object containing the closest collision point and
      * the collidable object involved,
-     *                    or null if no collision is found
+     *                    or null if no collision is found. With a frame arena it is only valid for this tick.
      */
     public CollisionInfo getClosestCollision(Line trajectory, Ball ball) {
-        List<Point> collisions = new ArrayList<>();
+        CollisionInfo info = frameArena != null ? frameArena.collisionInfo() : new CollisionInfo();
+        if (findClosestCollision(trajectory, ball, info)) {
+            return info;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the closest collision between a trajectory and a ball in a single pass over the collidables.
+     * The intersection with every collidable is computed once, and the nearest point is tracked together
+     * with the collidable that owns it, so no second lookup is needed.
+     *
+     * @param trajectory  the trajectory line of the ball
+     * @param ball        the ball for which the collision is being checked
+     * @param result      the CollisionInfo to fill with the closest collision point and collidable
+     * @return            true if a collision was found, false otherwise (the result is left untouched)
+     */
+    public boolean findClosestCollision(Line trajectory, Ball ball, CollisionInfo result) {
+        return findClosestCollision(trajectory, ball.velocity.dx, ball.velocity.dy, ball.getSize(), result);
+    }
 
-        // Make a list of points
-        for (Collidable collidable : objectsList) {
-            // Check if there is an intersection
-            if (trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(), ball) != null) {
-                collisions.add(trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(), ball));
+    /**
+     * Finds the closest collision for a ball given as plain numbers, moving along a trajectory that starts
+     * at its truncated center. This lets ball engines that do not keep Ball objects share the same query.
+     *
+     * @param trajectory  the trajectory line of the ball
+     * @param dx          the change in x-coordinate per step of the ball
+     * @param dy          the change in y-coordinate per step of the ball
+     * @param radius      the radius of the ball
+     * @param result      the CollisionInfo to fill with the closest collision point and collidable
+     * @return            true if a collision was found, false otherwise (the result is left untouched)
+     */
+    public boolean findClosestCollision(Line trajectory, double dx, double dy, int radius, CollisionInfo result) {
+        long start = Metrics.isRecording() ? System.nanoTime() : 0;
+        int tests = orderedQueries && trajectory.length() > PIECE_LENGTH ? searchAlong(trajectory, dx, dy, radius)
+                : search(trajectory, dx, dy, candidatesNear(trajectory, radius));
+        Collidable found = closestObject;
+        closestObject = null;
+
+        if (Metrics.isRecording()) {
+            Metrics.COLLISION_QUERIES.increment();
+            Metrics.INTERSECTION_TESTS.add(tests);
+            if (found != null) {
+                Metrics.COLLISION_HITS.increment();
             }
+            Metrics.QUERY_NANOS.record(System.nanoTime() - start);
+        }
+        if (found == null) {
+            return false;
         }
+        result.set(closestHit.getX(), closestHit.getY(), found);
+        return true;
+    }
 
-        // If its empty (it shouldnt be generally) return null.
-        if (collisions.size() == 0) {
-            return null;
+    /**
+     * Tests every candidate for the closest hit on the trajectory, leaving it in closestObject and closestHit.
+     * Of equally close hits, the one of the earliest candidate is kept.
+     *
+     * @param trajectory the trajectory line of the ball
+     * @param dx         the change in x-coordinate per step of the ball
+     * @param dy         the change in y-coordinate per step of the ball
+     * @param nearby     the candidates
+     * @return the number of candidates tested
+     */
+    private int search(Line trajectory, double dx, double dy, List<Collidable> nearby) {
+        double closestDistance = 0;
+        for (int i = 0; i < nearby.size(); i++) {
+            Collidable collidable = nearby.get(i);
+            if (!trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(), dx, dy, hit)) {
+                continue;
+            }
+            double distance = hit.distance(trajectory.start);
+            // Hits behind the ball are skipped for every collidable, so the result does not depend on
+            // the order in which the broad phase returns the candidates.
+            if ((closestObject == null || distance < closestDistance) && trajectory.isInDirection(hit, dx, dy)) {
+                closestObject = collidable;
+                closestHit.setLocation(hit.getX(), hit.getY());
+                closestDistance = distance;
+            }
         }
+        return nearby.size();
+    }
 
-        Point closestPoint = collisions.get(0);
-
-        // Find the closest point of all points
-        for (int i = 1; i < collisions.size(); i++) {
-            if (Math.abs(closestPoint.distance(trajectory.start))
-                    > Math.abs(collisions.get(i).distance(trajectory.start))) {
-                List<Point> points = new ArrayList<>();
-                points.add(collisions.get(i));
-                points = trajectory.checkBallDirection(points, ball);
-                if (points.size() != 0) {
-                    closestPoint = collisions.get(i);
+    /**
+     * Finds the same hit as search, gathering the candidates piece by piece along the trajectory, nearest
+     * piece first, and stopping once the closest hit so far lies within the pieces gathered: a collidable with
+     * a closer hit would touch the trajectory before that point, and so would have been gathered already.
+     * When the pieces run out first, or when two collidables are hit at the same distance and the one search
+     * keeps depends on the order of the full candidate list, the full candidate list is searched instead.
+     *
+     * @param trajectory the trajectory line of the ball
+     * @param dx         the change in x-coordinate per step of the ball
+     * @param dy         the change in y-coordinate per step of the ball
+     * @param radius     the radius of the ball
+     * @return the number of candidates tested
+     */
+    private int searchAlong(Line trajectory, double dx, double dy, int radius) {
+        double x = trajectory.start.getX();
+        double y = trajectory.start.getY();
+        double dirX = trajectory.end.getX() - x;
+        double dirY = trajectory.end.getY() - y;
+        double length = Math.sqrt(dirX * dirX + dirY * dirY);
+        // The same margin as candidatesNear, and the pieces are clamped to the trajectory against rounding,
+        // so every piece lies within the box searched by search.
+        double margin = radius + 1;
+        double minX = Math.min(x, trajectory.end.getX());
+        double minY = Math.min(y, trajectory.end.getY());
+        double maxX = Math.max(x, trajectory.end.getX());
+        double maxY = Math.max(y, trajectory.end.getY());
+        double closestDistance = 0;
+        boolean tied = false;
+        int tested = 0;
+        for (double from = 0; from < length; from += PIECE_LENGTH) {
+            double to = Math.min(length, from + PIECE_LENGTH);
+            double fromX = x + dirX * (from / length);
+            double fromY = y + dirY * (from / length);
+            double toX = x + dirX * (to / length);
+            double toY = y + dirY * (to / length);
+            candidates.clear();
+            broadPhase.query(Math.max(minX, Math.min(fromX, toX)) - margin,
+                    Math.max(minY, Math.min(fromY, toY)) - margin,
+                    Math.min(maxX, Math.max(fromX, toX)) + margin,
+                    Math.min(maxY, Math.max(fromY, toY)) + margin, candidates);
+            tested += candidates.size();
+            for (int i = 0; i < candidates.size(); i++) {
+                Collidable collidable = candidates.get(i);
+                if (!trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(), dx, dy, hit)
+                        || !trajectory.isInDirection(hit, dx, dy)) {
+                    continue;
+                }
+                double distance = hit.distance(trajectory.start);
+                if (closestObject == null || distance < closestDistance) {
+                    closestObject = collidable;
+                    closestHit.setLocation(hit.getX(), hit.getY());
+                    closestDistance = distance;
+                    tied = false;
+                } else if (distance == closestDistance && collidable != closestObject) {
+                    tied = true;
                 }
             }
-        }
-        // Go over all collidables and find the closest intersection to return with the point as CollisionInfo.
-        for (Collidable collidable : objectsList) {
-            if (trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(), ball) != null) {
-                if (trajectory.closestIntersectionToStartOfLine(collidable.getCollisionRectangle(),
-                        ball).equals(closestPoint)) {
-                    return new CollisionInfo(closestPoint, collidable);
+            if (closestObject != null && closestDistance < to - PIECE_SLACK) {
+                if (!tied) {
+                    return tested;
                 }
+                break;
             }
         }
-
-        return null;
+        closestObject = null;
+        return tested + search(trajectory, dx, dy, candidatesNear(trajectory, radius));
     }
 }
@@ -0,0 +1,178 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The GameState class is a snapshot of everything in a game that changes while it runs:
+ * the tick, the paddle position, the balls and the hit points of the blocks.
+ * Restoring a snapshot into a game freshly initialized with the same seed and level puts it back
+ * exactly where the snapshot was taken.
+ */
+public class GameState {
+
+    private final long tick;
+    private final int paddleX;
+    private final double[] ballX;
+    private final double[] ballY;
+    private final double[] ballDx;
+    private final double[] ballDy;
+    private final int[] hitPoints;
+
+    /**
+     * Constructs a snapshot from the given values. The arrays are kept, not copied.
+     *
+     * @param tick      the number of ticks run before the snapshot was taken
+     * @param paddleX   the x-coordinate of the left edge of the paddle
+     * @param ballX     the x-coordinates of the centers of the balls
+     * @param ballY     the y-coordinates of the centers of the balls
+     * @param ballDx    the x-velocities of the balls
+     * @param ballDy    the y-velocities of the balls
+     * @param hitPoints the hit points of the blocks, in the order they were created
+     */
+    public GameState(long tick, int paddleX, double[] ballX, double[] ballY, double[] ballDx, double[] ballDy,
+                     int[] hitPoints) {
+        this.tick = tick;
+        this.paddleX = paddleX;
+        this.ballX = ballX;
+        this.ballY = ballY;
+        this.ballDx = ballDx;
+        this.ballDy = ballDy;
+        this.hitPoints = hitPoints;
+    }
+
+    /**
+     * Gets the number of ticks run before the snapshot was taken.
+     *
+     * @return the tick of the snapshot
+     */
+    public long tick() {
+        return tick;
+    }
+
+    /**
+     * Gets the x-coordinate of the left edge of the paddle.
+     *
+     * @return the x-coordinate of the paddle
+     */
+    public int paddleX() {
+        return paddleX;
+    }
+
+    /**
+     * Gets the number of balls in the snapshot.
+     *
+     * @return the number of balls
+     */
+    public int balls() {
+        return ballX.length;
+    }
+
+    /**
+     * Gets the x-coordinate of the center of a ball.
+     *
+     * @param i the number of the ball
+     * @return the x-coordinate
+     */
+    public double ballX(int i) {
+        return ballX[i];
+    }
+
+    /**
+     * Gets the y-coordinate of the center of a ball.
+     *
+     * @param i the number of the ball
+     * @return the y-coordinate
+     */
+    public double ballY(int i) {
+        return ballY[i];
+    }
+
+    /**
+     * Gets the x-velocity of a ball.
+     *
+     * @param i the number of the ball
+     * @return the change in x-coordinate per tick
+     */
+    public double ballDx(int i) {
+        return ballDx[i];
+    }
+
+    /**
+     * Gets the y-velocity of a ball.
+     *
+     * @param i the number of the ball
+     * @return the change in y-coordinate per tick
+     */
+    public double ballDy(int i) {
+        return ballDy[i];
+    }
+
+    /**
+     * Gets the number of blocks in the snapshot, including destroyed ones.
+     *
+     * @return the number of blocks
+     */
+    public int blocks() {
+        return hitPoints.length;
+    }
+
+    /**
+     * Gets the hit points of a block.
+     *
+     * @param i the number of the block, in the order the blocks were created
+     * @return the hit points, 0 for a destroyed block or Block.INDESTRUCTIBLE
+     */
+    public int hitPoints(int i) {
+        return hitPoints[i];
+    }
+
+    /**
+     * Writes the snapshot to a binary stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(tick);
+        out.writeInt(paddleX);
+        out.writeInt(ballX.length);
+        for (int i = 0; i < ballX.length; i++) {
+            out.writeDouble(ballX[i]);
+            out.writeDouble(ballY[i]);
+            out.writeDouble(ballDx[i]);
+            out.writeDouble(ballDy[i]);
+        }
+        out.writeInt(hitPoints.length);
+        for (int hp : hitPoints) {
+            out.writeInt(hp);
+        }
+    }
+
+    /**
+     * Reads a snapshot written by writeTo.
+     *
+     * @param in the stream to read from
+     * @return the snapshot
+     * @throws IOException if the stream cannot be read
+     */
+    public static GameState readFrom(DataInput in) throws IOException {
+        long tick = in.readLong();
+        int paddleX = in.readInt();
+        int balls = in.readInt();
+        double[] x = new double[balls];
+        double[] y = new double[balls];
+        double[] dx = new double[balls];
+        double[] dy = new double[balls];
+        for (int i = 0; i < balls; i++) {
+            x[i] = in.readDouble();
+            y[i] = in.readDouble();
+            dx[i] = in.readDouble();
+            dy[i] = in.readDouble();
+        }
+        int[] hitPoints = new int[in.readInt()];
+        for (int i = 0; i < hitPoints.length; i++) {
+            hitPoints[i] = in.readInt();
+        }
+        return new GameState(tick, paddleX, x, y, dx, dy, hitPoints);
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * The Histogram class counts recorded values in log-linear buckets, the way HDR histograms do:
+ * every power of two is split into the same number of sub-buckets, so any percentile is reported
+ * within about 3% of the real value while the histogram stays a fixed-size array of counts.
+ * Recording does not allocate. A histogram is meant to be recorded into from one thread at a time.
+ */
+public class Histogram {
+
+    // 32 sub-buckets per power of two.
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Constructs an empty histogram.
+     *
+     * @param name the name of the histogram
+     */
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the histogram.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[bucketOf(v)]++;
+        count++;
+        sum += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+
+    /**
+     * Finds the bucket holding a value. Values below SUB_BUCKETS get a bucket each, and every
+     * power of two above that is split into SUB_BUCKETS equal buckets.
+     *
+     * @param value the value, not negative
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the largest value that falls into a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the highest value of the bucket
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long max() {
+        return max;
+    }
+
+    /**
+     * Gets a percentile of the recorded values, rounded up to the end of its bucket.
+     *
+     * @param percent the percentile, from 0 to 100
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the count, mean and main percentiles of the histogram.
+     *
+     * @return a one-line summary
+     */
+    @Override
+    public String toString() {
+        return String.format("%s count %d mean %.1f p50 %d p90 %d p99 %d p99.9 %d max %d", name, count, mean(),
+                percentile(50), percentile(90), percentile(99), percentile(99.9), max);
+    }
+}
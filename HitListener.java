@@ -0,0 +1,12 @@
+/**
+ * The HitListener interface represents objects that want to know when a block is hit.
+ */
+public interface HitListener {
+
+    /**
+     * Called whenever the given block is hit, after its hit points were updated.
+     *
+     * @param beingHit the block that was hit
+     */
+    void hitEvent(Block beingHit);
+}
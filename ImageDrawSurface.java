@@ -0,0 +1,142 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+
+/**
+ * The ImageDrawSurface class is a DrawSurface that draws into a BufferedImage with Java2D.
+ * It does not need a display, so it also works in a headless JVM.
+ */
+public class ImageDrawSurface implements DrawSurface {
+
+    private final BufferedImage image;
+    private Graphics2D graphics;
+
+    /**
+     * Constructs a surface with a new image of the given size.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    public ImageDrawSurface(int width, int height) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+
+    /**
+     * Constructs a surface drawing into an existing image.
+     *
+     * @param image the image to draw into
+     */
+    public ImageDrawSurface(BufferedImage image) {
+        this.image = image;
+        this.graphics = image.createGraphics();
+    }
+
+    /**
+     * Gets the image this surface draws into.
+     *
+     * @return the image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the Java2D graphics this surface draws with, for operations DrawSurface does not offer.
+     *
+     * @return the graphics of the image
+     */
+    public Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    /**
+     * Makes the surface draw with other graphics, for subclasses that draw somewhere else than into the image.
+     * The graphics drawn with so far are released.
+     *
+     * @param newGraphics the graphics to draw with from now on
+     */
+    protected void setGraphics(Graphics2D newGraphics) {
+        graphics.dispose();
+        graphics = newGraphics;
+    }
+
+    /**
+     * Releases the graphics of the surface. The surface must not be drawn on afterwards.
+     */
+    public void dispose() {
+        graphics.dispose();
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        graphics.drawOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        graphics.fillOval(x - r, y - r, 2 * r, 2 * r);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        graphics.drawOval(x, y, w, h);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        graphics.fillOval(x, y, w, h);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        graphics.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        graphics.drawRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        graphics.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        graphics.drawPolygon(p);
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        graphics.fillPolygon(p);
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        Font font = graphics.getFont();
+        if (font.getSize() != fontSize) {
+            graphics.setFont(font.deriveFont((float) fontSize));
+        }
+        graphics.drawString(s, x, y);
+    }
+
+    @Override
+    public void setColor(Color color) {
+        graphics.setColor(color);
+    }
+
+    @Override
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return image.getHeight();
+    }
+}
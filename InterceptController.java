@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * The InterceptController class is a PaddleController that moves the paddle to where the next ball will
+ * come down. For every ball it predicts where the line of its center will cross the top of the paddle,
+ * which is where the paddle is hit, following the ball through its bounces with the same ray queries the balls use.
+ * The paddle is steered under the ball predicted to arrive first, and within its reach as close as it can to
+ * the ball arriving after it, so it has less far to go once the first ball is back on its way up.
+ * <p>
+ * Predictions are cached per ball and only recomputed when the velocity of the ball changed, which happens
+ * when it bounces, or when a collidable was added to or removed from the environment, which may change its
+ * path. Between bounces a tick costs a comparison per ball, so the controller stays cheap with many balls.
+ * The paddle itself is not an obstacle in the prediction.
+ */
+public class InterceptController implements PaddleController {
+
+    private static final int SCREEN_WIDTH = 800;
+    private static final int SCREEN_HEIGHT = 600;
+    // The most bounces followed by a single prediction, after which the ball is left unpredicted.
+    private static final int MAX_BOUNCES = 32;
+    // How far the middle of the paddle may be from the target before the paddle moves.
+    private static final double DEAD_ZONE = 3;
+    // How far inside the ends of the paddle a ball must come down to be caught safely.
+    private static final double CATCH_MARGIN = 2;
+    // The distance along a ray within which a hit on the far end of the ray still counts.
+    private static final double RAY_SLACK = 1;
+
+    private final Line ray = new Line(new Point(0, 0), new Point(0, 0));
+    private final CollisionInfo collision = new CollisionInfo();
+    private int structureVersion;
+    private boolean[] valid = new boolean[0];
+    private double[] cachedDx = new double[0];
+    private double[] cachedDy = new double[0];
+    // Where and on which tick every ball arrives, or a negative tick if it does not arrive.
+    private double[] arrivalX = new double[0];
+    private long[] arrivalTick = new long[0];
+    private long predictions;
+
+    @Override
+    public int keys(Game game) {
+        int balls = game.getBallCount();
+        if (balls != valid.length) {
+            valid = new boolean[balls];
+            cachedDx = new double[balls];
+            cachedDy = new double[balls];
+            arrivalX = new double[balls];
+            arrivalTick = new long[balls];
+        }
+        if (game.getEnvironment().getStructureVersion() != structureVersion) {
+            structureVersion = game.getEnvironment().getStructureVersion();
+            Arrays.fill(valid, false);
+        }
+
+        Rectangle paddle = game.getPaddle().getCollisionRectangle();
+        int first = -1;
+        int second = -1;
+        for (int i = 0; i < balls; i++) {
+            if (!valid[i] || game.getBallDx(i) != cachedDx[i] || game.getBallDy(i) != cachedDy[i]) {
+                predict(game, i, paddle.getTopY());
+            }
+            if (arrivalTick[i] < game.getTick()) {
+                continue;
+            }
+            if (first < 0 || arrivalTick[i] < arrivalTick[first]) {
+                second = first;
+                first = i;
+            } else if (second < 0 || arrivalTick[i] < arrivalTick[second]) {
+                second = i;
+            }
+        }
+        if (first < 0) {
+            return 0;
+        }
+        double target = arrivalX[first];
+        if (second >= 0) {
+            double reach = Math.max(0, (paddle.getBottomX() - paddle.getTopX()) / 2.0 - CATCH_MARGIN);
+            target = Math.max(target - reach, Math.min(target + reach, arrivalX[second]));
+        }
+        double middle = (paddle.getTopX() + paddle.getBottomX()) / 2.0;
+        if (target < middle - DEAD_ZONE) {
+            return ReplayKeyboard.LEFT;
+        }
+        if (target > middle + DEAD_ZONE) {
+            return ReplayKeyboard.RIGHT;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the number of predictions computed so far, counting every ball whose cached prediction was stale.
+     *
+     * @return the number of predictions
+     */
+    public long getPredictions() {
+        return predictions;
+    }
+
+    /**
+     * Predicts where and when a ball arrives at the paddle and caches the prediction.
+     * The ball is followed ray by ray: every ray runs from the ball to the edge of the screen or to the
+     * top of the paddle, and a hit on the way moves the ball to where it turns and reflects its velocity
+     * off the side of the collidable it hit.
+     *
+     * @param game    the game of the ball
+     * @param i       the index of the ball
+     * @param paddleY the y-coordinate of the top of the paddle
+     */
+    private void predict(Game game, int i, int paddleY) {
+        double dx = game.getBallDx(i);
+        double dy = game.getBallDy(i);
+        valid[i] = true;
+        cachedDx[i] = dx;
+        cachedDy[i] = dy;
+        arrivalTick[i] = -1;
+        predictions++;
+
+        double speed = Math.hypot(dx, dy);
+        if (speed == 0) {
+            return;
+        }
+        int radius = game.getBallSize(i);
+        double x = game.getBallX(i);
+        double y = game.getBallY(i);
+        double ticks = 0;
+        for (int bounce = 0; bounce < MAX_BOUNCES; bounce++) {
+            if (dy > 0 && y > paddleY) {
+                return;
+            }
+            double t = ticksToLeaveScreen(x, y, dx, dy);
+            boolean arrives = dy > 0 && (paddleY - y) / dy <= t;
+            if (arrives) {
+                t = (paddleY - y) / dy;
+            }
+            ray.set(x, y, x + dx * t, y + dy * t);
+            GameEnvironment environment = game.getEnvironment();
+            if (environment.findClosestCollision(ray, dx, dy, radius, collision)
+                    && collision.collisionObject() != game.getPaddle()
+                    && collision.collisionPoint().distance(ray.start) <= speed * t + RAY_SLACK) {
+                Point hit = collision.collisionPoint();
+                // The ball turns once the hit is closer than its radius.
+                double turn = Math.max(0, hit.distance(ray.start) - radius) / speed;
+                x += dx * turn;
+                y += dy * turn;
+                ticks += turn;
+                Rectangle rect = collision.collisionObject().getCollisionRectangle();
+                boolean horizontal = Threshold.areEqual(rect.getTopY(), hit.getY())
+                        || Threshold.areEqual(rect.getBottomY(), hit.getY());
+                boolean vertical = Threshold.areEqual(rect.getTopX(), hit.getX())
+                        || Threshold.areEqual(rect.getBottomX(), hit.getX());
+                if (horizontal || !vertical) {
+                    dy = -dy;
+                }
+                if (vertical) {
+                    dx = -dx;
+                }
+                continue;
+            }
+            if (arrives) {
+                // The paddle is hit at the end of the ray, and the ball turns a radius before it.
+                arrivalX[i] = x + dx * t;
+                arrivalTick[i] = game.getTick() + (long) Math.ceil(Math.max(0, ticks + t - radius / speed));
+            }
+            return;
+        }
+    }
+
+    /**
+     * Computes how many ticks a ball moving in a straight line takes to leave the screen.
+     *
+     * @param x  the x-coordinate of the ball
+     * @param y  the y-coordinate of the ball
+     * @param dx the change in x-coordinate per tick
+     * @param dy the change in y-coordinate per tick
+     * @return the ticks until the ball leaves the screen, at least 0
+     */
+    private static double ticksToLeaveScreen(double x, double y, double dx, double dy) {
+        double t = Double.POSITIVE_INFINITY;
+        if (dx > 0) {
+            t = Math.min(t, (SCREEN_WIDTH - x) / dx);
+        } else if (dx < 0) {
+            t = Math.min(t, -x / dx);
+        }
+        if (dy > 0) {
+            t = Math.min(t, (SCREEN_HEIGHT - y) / dy);
+        } else if (dy < 0) {
+            t = Math.min(t, -y / dy);
+        }
+        return Math.max(0, t);
+    }
+}
@@ -0,0 +1,242 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Level class holds the block layout of a game board, stored as parallel int arrays
+ * so that large boards can be loaded without creating an object per block.
+ * Blocks are created from the layout only when the level is added to a game.
+ */
+public class Level {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String name;
+    private int[] x;
+    private int[] y;
+    private int[] width;
+    private int[] height;
+    private int[] color;
+    private int[] hitPoints;
+    private int count;
+    private long loadNanos;
+
+    /**
+     * Constructs an empty level.
+     *
+     * @param name the name of the level
+     */
+    public Level(String name) {
+        this(name, new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY],
+                new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], 0);
+    }
+
+    /**
+     * Constructs a level that takes ownership of already filled block arrays.
+     *
+     * @param name      the name of the level
+     * @param x         the x-coordinates of the top-left corners of the blocks
+     * @param y         the y-coordinates of the top-left corners of the blocks
+     * @param width     the widths of the blocks
+     * @param height    the heights of the blocks
+     * @param color     the RGB colors of the blocks
+     * @param hitPoints the hit points of the blocks, or Block.INDESTRUCTIBLE
+     * @param count     the number of blocks in the arrays
+     */
+    Level(String name, int[] x, int[] y, int[] width, int[] height, int[] color, int[] hitPoints, int count) {
+        this.name = name;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.color = color;
+        this.hitPoints = hitPoints;
+        this.count = count;
+    }
+
+    /**
+     * Adds a block to the level.
+     *
+     * @param left      the x-coordinate of the top-left corner of the block
+     * @param top       the y-coordinate of the top-left corner of the block
+     * @param w         the width of the block
+     * @param h         the height of the block
+     * @param rgb       the RGB color of the block, from 0x000000 to 0xFFFFFF
+     * @param hp        the hit points of the block, or Block.INDESTRUCTIBLE
+     * @throws IllegalArgumentException if the size is not positive or the color or hit points are not valid
+     */
+    public void addBlock(int left, int top, int w, int h, int rgb, int hp) {
+        checkBlock(w, h, rgb, hp);
+        if (count == x.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, count * 2);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            color = Arrays.copyOf(color, capacity);
+            hitPoints = Arrays.copyOf(hitPoints, capacity);
+        }
+        x[count] = left;
+        y[count] = top;
+        width[count] = w;
+        height[count] = h;
+        color[count] = rgb;
+        hitPoints[count] = hp;
+        count++;
+    }
+
+    /**
+     * Checks that a block has a positive size, an RGB color without alpha bits and either a positive
+     * number of hit points or Block.INDESTRUCTIBLE.
+     *
+     * @param w   the width of the block
+     * @param h   the height of the block
+     * @param rgb the color of the block
+     * @param hp  the hit points of the block
+     * @throws IllegalArgumentException if the block is not valid
+     */
+    static void checkBlock(int w, int h, int rgb, int hp) {
+        if (w <= 0 || h <= 0) {
+            throw new IllegalArgumentException("block size must be positive: " + w + "x" + h);
+        }
+        if ((rgb & ~0xFFFFFF) != 0) {
+            throw new IllegalArgumentException(String.format("color must be from 000000 to ffffff: %x", rgb));
+        }
+        if (hp <= 0 && hp != Block.INDESTRUCTIBLE) {
+            throw new IllegalArgumentException("hit points must be positive or " + Block.INDESTRUCTIBLE + ": " + hp);
+        }
+    }
+
+    /**
+     * Creates the block with the given number.
+     *
+     * @param i        the number of the block
+     * @param previous the color of the previously created block, reused when the colors match, or null
+     * @return the new block
+     */
+    private Block createBlock(int i, Color previous) {
+        Color c = previous != null && (previous.getRGB() & 0xFFFFFF) == (color[i] & 0xFFFFFF)
+                ? previous : new Color(color[i]);
+        Rectangle rect = new Rectangle(new Point(x[i], y[i]), new Point(x[i] + width[i], y[i] + height[i]), c);
+        return new Block(rect, hitPoints[i]);
+    }
+
+    /**
+     * Creates the blocks of the level and adds them to a game. Destructible blocks are reported to the listener.
+     *
+     * @param game     the game to add the blocks to
+     * @param listener the listener notified when a destructible block is hit
+     * @return the new blocks, in the order of the level
+     */
+    public List<Block> addToGame(Game game, HitListener listener) {
+        List<Block> blocks = new ArrayList<>(count);
+        Color previous = null;
+        for (int i = 0; i < count; i++) {
+            Block block = createBlock(i, previous);
+            if (block.getHitPoints() != Block.INDESTRUCTIBLE) {
+                block.addHitListener(listener);
+            }
+            block.addToGame(game);
+            blocks.add(block);
+            previous = block.getCollisionRectangle().getColor();
+        }
+        return blocks;
+    }
+
+    /**
+     * Gets the name of the level.
+     *
+     * @return the name of the level
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of blocks in the level.
+     *
+     * @return the number of blocks
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the x-coordinate of the top-left corner of a block.
+     *
+     * @param i the number of the block
+     * @return the x-coordinate
+     */
+    public int x(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the y-coordinate of the top-left corner of a block.
+     *
+     * @param i the number of the block
+     * @return the y-coordinate
+     */
+    public int y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the width of a block.
+     *
+     * @param i the number of the block
+     * @return the width
+     */
+    public int width(int i) {
+        return width[i];
+    }
+
+    /**
+     * Gets the height of a block.
+     *
+     * @param i the number of the block
+     * @return the height
+     */
+    public int height(int i) {
+        return height[i];
+    }
+
+    /**
+     * Gets the RGB color of a block.
+     *
+     * @param i the number of the block
+     * @return the color, as 0xRRGGBB
+     */
+    public int color(int i) {
+        return color[i];
+    }
+
+    /**
+     * Gets the hit points of a block.
+     *
+     * @param i the number of the block
+     * @return the hit points, or Block.INDESTRUCTIBLE
+     */
+    public int hitPoints(int i) {
+        return hitPoints[i];
+    }
+
+    /**
+     * Gets how long it took to load the level from disk.
+     *
+     * @return the load time in nanoseconds, or 0 if the level was not loaded from disk
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * Sets how long it took to load the level from disk.
+     *
+     * @param nanos the load time in nanoseconds
+     */
+    void setLoadNanos(long nanos) {
+        this.loadNanos = nanos;
+    }
+}
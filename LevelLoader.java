@@ -0,0 +1,236 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The LevelLoader class reads and writes levels in two formats.
+ * <p>
+ * The text format has one block per line, "x y width height color hitPoints", with the color written
+ * as six hex digits and -1 hit points for an indestructible block. An optional "name" line before the first
+ * block names the level, and lines starting with '#' are comments. Blocks must have a positive size and
+ * either a positive number of hit points or -1.
+ * <p>
+ * The binary format starts with the magic number "ARKL", a version, the number of blocks and the
+ * UTF-8 name padded to a multiple of four bytes. It is followed by six columns of big-endian ints:
+ * all the x-coordinates, then all the y-coordinates, widths, heights, colors and hit points.
+ * The file is memory-mapped and every column is copied straight into the level's arrays.
+ */
+public final class LevelLoader {
+
+    /**
+     * The first four bytes of a binary level file.
+     */
+    public static final int MAGIC = 0x41524B4C;
+
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 4;
+    private static final int COLUMNS = 6;
+
+    private LevelLoader() {
+    }
+
+    /**
+     * Loads a level, choosing the format by the first bytes of the file.
+     *
+     * @param path the level file
+     * @return the loaded level
+     * @throws IOException if the file cannot be read or is not a valid level
+     */
+    public static Level load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            int read = 0;
+            while (magic.hasRemaining() && read >= 0) {
+                read = channel.read(magic);
+            }
+            if (!magic.hasRemaining() && magic.getInt(0) == MAGIC) {
+                return loadBinary(path);
+            }
+        }
+        return loadText(path);
+    }
+
+    /**
+     * Loads a level in the text format.
+     *
+     * @param path the level file
+     * @return the loaded level
+     * @throws IOException if the file cannot be read or a line is malformed or holds an invalid block
+     */
+    public static Level loadText(Path path) throws IOException {
+        long start = System.nanoTime();
+        Level level = null;
+        String name = path.getFileName().toString();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("name ")) {
+                    if (level != null) {
+                        throw new IOException(path + ":" + lineNumber + ": name must come before the first block");
+                    }
+                    name = line.substring("name ".length()).trim();
+                    continue;
+                }
+                if (level == null) {
+                    level = new Level(name);
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != COLUMNS) {
+                    throw new IOException(path + ":" + lineNumber + ": expected " + COLUMNS + " fields");
+                }
+                try {
+                    level.addBlock(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                            Integer.parseInt(fields[4], 16), Integer.parseInt(fields[5]));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(path + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (level == null) {
+            level = new Level(name);
+        }
+        level.setLoadNanos(System.nanoTime() - start);
+        return level;
+    }
+
+    /**
+     * Loads a level in the binary format by memory-mapping the file.
+     *
+     * @param path the level file
+     * @return the loaded level
+     * @throws IOException if the file cannot be read, is not a valid binary level or holds an invalid block
+     */
+    public static Level loadBinary(Path path) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_INTS * Integer.BYTES) {
+                throw new IOException(path + ": too short for a binary level");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(path + ": not a binary level");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + ": unsupported binary level version " + version);
+            }
+            int count = buffer.getInt();
+            int nameLength = buffer.getInt();
+            long expected = HEADER_INTS * (long) Integer.BYTES + padded(nameLength)
+                    + (long) COLUMNS * count * Integer.BYTES;
+            if (count < 0 || nameLength < 0 || expected != fileSize) {
+                throw new IOException(path + ": binary level has the wrong size");
+            }
+            byte[] nameBytes = new byte[nameLength];
+            buffer.get(nameBytes);
+            buffer.position(buffer.position() + padded(nameLength) - nameLength);
+
+            IntBuffer ints = buffer.asIntBuffer();
+            int[][] columns = new int[COLUMNS][count];
+            for (int[] column : columns) {
+                ints.get(column);
+            }
+            for (int i = 0; i < count; i++) {
+                try {
+                    Level.checkBlock(columns[2][i], columns[3][i], columns[4][i], columns[5][i]);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(path + ": block " + i + ": " + e.getMessage(), e);
+                }
+            }
+            Level level = new Level(new String(nameBytes, StandardCharsets.UTF_8),
+                    columns[0], columns[1], columns[2], columns[3], columns[4], columns[5], count);
+            level.setLoadNanos(System.nanoTime() - start);
+            return level;
+        }
+    }
+
+    /**
+     * Writes a level in the text format.
+     *
+     * @param level the level to write
+     * @param path  the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeText(Level level, Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("name " + level.getName());
+            writer.newLine();
+            writer.write("# x y width height color hitPoints");
+            writer.newLine();
+            for (int i = 0; i < level.size(); i++) {
+                writer.write(level.x(i) + " " + level.y(i) + " " + level.width(i) + " " + level.height(i) + " "
+                        + String.format("%06x", level.color(i)) + " " + level.hitPoints(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes a level in the binary format.
+     *
+     * @param level the level to write
+     * @param path  the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeBinary(Level level, Path path) throws IOException {
+        byte[] nameBytes = level.getName().getBytes(StandardCharsets.UTF_8);
+        int count = level.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_INTS * Integer.BYTES + padded(nameBytes.length)
+                + COLUMNS * count * Integer.BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(nameBytes.length);
+        buffer.put(nameBytes);
+        buffer.position(buffer.position() + padded(nameBytes.length) - nameBytes.length);
+        IntBuffer ints = buffer.asIntBuffer();
+        for (int i = 0; i < count; i++) {
+            ints.put(level.x(i));
+        }
+        for (int i = 0; i < count; i++) {
+            ints.put(level.y(i));
+        }
+        for (int i = 0; i < count; i++) {
+            ints.put(level.width(i));
+        }
+        for (int i = 0; i < count; i++) {
+            ints.put(level.height(i));
+        }
+        for (int i = 0; i < count; i++) {
+            ints.put(level.color(i));
+        }
+        for (int i = 0; i < count; i++) {
+            ints.put(level.hitPoints(i));
+        }
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Rounds a byte count up to a whole number of ints, so the columns after the name stay aligned.
+     *
+     * @param length the byte count
+     * @return the padded byte count
+     */
+    private static int padded(int length) {
+        return (length + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+}
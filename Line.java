@@ -5,7 +5,6 @@
  */
 // Roie Amsalem 322535436
 import java.awt.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Iterator;
 
@@ -19,16 +18,19 @@ public class Line {
     final Point start;
     final Point end;
 
+    // The direction of the line, end minus start, and the implicit form a * x + b * y = c of the line through it.
+    // They are cached, so the points must only be moved through set or followed by a call to refresh.
+    private double dirX;
+    private double dirY;
+    private double a;
+    private double b;
+    private double c;
+
     /**
      * Represents positive infinity slope in case of a vertical line.
      */
     public static final double INFINITE_SLOPE = 2147483647;
 
-    /**
-     * Represents a constant value indicating the end of a line segment.
-     */
-    public static final double END = -2147483647;
-
     /**
      * Constructs a new Line object with the specified start and end points.
      *
@@ -38,6 +40,33 @@ public class Line {
     public Line(Point start, Point end) {
         this.start = start;
         this.end = end;
+        refresh();
+    }
+
+    /**
+     * Recomputes the cached direction and coefficients of the line after its points were moved in place.
+     */
+    public void refresh() {
+        this.dirX = this.end.getX() - this.start.getX();
+        this.dirY = this.end.getY() - this.start.getY();
+        this.a = this.dirY;
+        this.b = -this.dirX;
+        this.c = this.a * this.start.getX() + this.b * this.start.getY();
+    }
+
+    /**
+     * Moves both ends of the line segment in place. Meant for scratch lines that own their points,
+     * since points shared with other objects would move as well.
+     *
+     * @param startX the new x-coordinate of the starting point
+     * @param startY the new y-coordinate of the starting point
+     * @param endX   the new x-coordinate of the ending point
+     * @param endY   the new y-coordinate of the ending point
+     */
+    public void set(double startX, double startY, double endX, double endY) {
+        this.start.setLocation(startX, startY);
+        this.end.setLocation(endX, endY);
+        refresh();
     }
 
     /**
@@ -93,88 +122,27 @@ public class Line {
     }
 
     /**
-     * Checks if the line segment has an infinite slope (vertical line).
+     * Checks if the current line crosses another line, treating both as infinite lines.
+     * Parallel lines only count as intersecting when they lie on top of each other.
      *
-     * @param myLine    the current line segment
-     * @param otherLine the other line segment
-     * @return true if either line segment has an infinite slope, false otherwise
-     */
-    public boolean infiniteSlope(Line myLine, Line otherLine) {
-        double mySlope = myLine.findSlope();
-        double otherSlope = otherLine.findSlope();
-        if (mySlope == INFINITE_SLOPE) {
-            double xInterception = myLine.start.getX();
-            double bLine = -otherSlope * otherLine.start.getX() + otherLine.start.getY();
-            double yInterception = otherSlope * xInterception + bLine;
-            return true;
-        } else if (otherSlope == INFINITE_SLOPE) {
-            double xInterception = otherLine.start.getX();
-            double bLine = -mySlope * myLine.start.getX() + myLine.start.getY();
-            double yInterception = mySlope * xInterception + bLine;
-            return true;
-        } else {
-            return false;
-        }
-    }
-
-    /**
-     * Calculates the y-coordinate of the intersection point for two lines with infinite slopes (vertical lines).
-     *
-     * @param myLine    the current line segment
-     * @param otherLine the other line segment
-     * @return the y-coordinate of the intersection point
+     * @param other the other line segment
+     * @return true if the lines intersect, false otherwise
      */
-    public Point infiniteSlopeIntersection(Line myLine, Line otherLine) {
-        double mySlope = myLine.findSlope();
-        double otherSlope = otherLine.findSlope();
-        if (mySlope == INFINITE_SLOPE) {
-            double xInterception = myLine.start.getX();
-            double bLine = -otherSlope * otherLine.start.getX() + otherLine.start.getY();
-            double yInterception = otherSlope * xInterception + bLine;
-            return new Point(xInterception, yInterception);
-        } else if (otherSlope == INFINITE_SLOPE) {
-            double xInterception = otherLine.start.getX();
-            double bLine = -mySlope * myLine.start.getX() + myLine.start.getY();
-            double yInterception = mySlope * xInterception + bLine;
-            return new Point(xInterception, yInterception);
-        }
-        return new Point(END, END);
+    public boolean isIntersecting(Line other) {
+        double cross = this.dirX * other.dirY - this.dirY * other.dirX;
+        return cross != 0 || this.sideOf(other.start.getX(), other.start.getY()) == 0;
     }
 
     /**
-     * Checks if the current line segment intersects with another line segment.
+     * Evaluates the implicit form of the line at a point. The result is zero on the line, and its sign
+     * tells on which side of the line the point lies.
      *
-     * @param other the other line segment
-     * @return true if the line segments intersect, false otherwise
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the signed, unnormalized distance of the point from the line
      */
-    public boolean isIntersecting(Line other) {
-        double slope = this.findSlope();
-        double otherSlope = other.findSlope();
-        if (slope == otherSlope && this.start.getX() == other.start.getX()) {
-            return true;
-        } else if (slope == otherSlope) {
-            return false;
-        }
-
-        if (slope == INFINITE_SLOPE && otherSlope == INFINITE_SLOPE) {
-            if (this.start.getX() != other.start.getX()) {
-                return false;
-            } else {
-                return true;
-            }
-        }
-
-        if (slope == INFINITE_SLOPE || otherSlope == INFINITE_SLOPE) {
-            return infiniteSlope(this, other);
-        }
-
-        // Calculate general intersection
-        double yLine = this.start.getY() - slope * this.start.getX();
-        double otherYLine = other.start.getY() - otherSlope * other.start.getX();
-
-        // Calculate general intersection
-        double xInterception = (yLine - otherYLine) / (otherSlope - slope);
-        return true;
+    private double sideOf(double x, double y) {
+        return this.a * x + this.b * y - this.c;
     }
 
     /**
@@ -195,73 +163,113 @@ public class Line {
      * @return the intersection point
      */
     public Point intersectionWith(Line other) {
-        double slope = this.findSlope();
-        double otherSlope = other.findSlope();
-
-        // Calculate general intersection
-        double yLine = this.start.getY() - slope * this.start.getX();
-        double otherYLine = other.start.getY() - otherSlope * other.start.getX();
-
-        if (slope == INFINITE_SLOPE || otherSlope == INFINITE_SLOPE) {
-            return infiniteSlopeIntersection(this, other);
-        }
-
-        // Calculate general intersection
-        double xInterception = (yLine - otherYLine) / (otherSlope - slope);
-        double yInterception = yLine + slope * xInterception;
-        Point intersection = new Point(xInterception, yInterception);
+        Point intersection = new Point(0, 0);
+        intersectionWith(other, intersection);
         return intersection;
     }
 
+    /**
+     * Calculates the intersection point of the current line segment with another line segment,
+     * writing it into the given point instead of creating a new one.
+     *
+     * @param other the other line segment
+     * @param out   the point that receives the intersection
+     */
+    public void intersectionWith(Line other, Point out) {
+        // The other line is other.start + u * (other.end - other.start), and the implicit form of this line
+        // is linear along it, so u is where it goes from its value at the start to zero.
+        double startSide = this.sideOf(other.start.getX(), other.start.getY());
+        double endSide = this.sideOf(other.end.getX(), other.end.getY());
+        double u = startSide / (startSide - endSide);
+        out.setLocation(other.start.getX() + u * other.dirX, other.start.getY() + u * other.dirY);
+    }
+
     /**
      * Finds the closest intersection point to the start of the line segment with a rectangle.
      *
      * @param rect the rectangle with which intersection is checked
      * @param ball the ball to which the intersection is checked
-     * @return the closest intersection point to the start of the line segment, or null if no intersection
+     * @return the closest intersection point to the start of the line segment, or null if no intersection.
+     * When the environment of the ball has a frame arena, the point is only valid for this tick.
      */
     public Point closestIntersectionToStartOfLine(Rectangle rect, Ball ball) {
+        FrameArena arena = ball.getFrameArena();
+        Point closest = arena != null ? arena.point(0, 0) : new Point(0, 0);
+        if (closestIntersectionToStartOfLine(rect, ball, closest)) {
+            return closest;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the closest intersection point to the start of the line segment with a rectangle,
+     * writing it into the given point instead of creating a new one.
+     * A single intersection is always reported, when there are more only the ones in the direction
+     * of the ball are considered.
+     *
+     * @param rect the rectangle with which intersection is checked
+     * @param ball the ball to which the intersection is checked
+     * @param out  the point that receives the closest intersection, also used as scratch space
+     * @return true if an intersection was found, false otherwise (the point is then undefined)
+     */
+    public boolean closestIntersectionToStartOfLine(Rectangle rect, Ball ball, Point out) {
+        return closestIntersectionToStartOfLine(rect, ball.velocity.dx, ball.velocity.dy, out);
+    }
+
+    /**
+     * Finds the closest intersection point to the start of the line segment with a rectangle, for an object
+     * at the start of the line moving with the given velocity. Used by callers that keep balls as plain numbers.
+     *
+     * @param rect the rectangle with which intersection is checked
+     * @param dx   the change in x-coordinate per step of the moving object
+     * @param dy   the change in y-coordinate per step of the moving object
+     * @param out  the point that receives the closest intersection, also used as scratch space
+     * @return true if an intersection was found, false otherwise (the point is then undefined)
+     */
+    public boolean closestIntersectionToStartOfLine(Rectangle rect, double dx, double dy, Point out) {
         Line[] linesArray = rect.linesOfRect();
-        List<Point> points = new ArrayList<>();
+        int count = 0;
+        double firstX = 0;
+        double firstY = 0;
+        boolean found = false;
+        double closestX = 0;
+        double closestY = 0;
+        double closestDistance = 0;
         for (int i = 0; i < 4; i++) {
-            if (this.isIntersecting(linesArray[i])) {
-                Point temp = this.intersectionWith(linesArray[i]);
-                // Check if the point is on the line itself.
-                if (temp.getX() <= Math.max(linesArray[i].start.getX(), linesArray[i].end.getX())
-                        && temp.getX() >= Math.min(linesArray[i].start.getX(), linesArray[i].end.getX())
-                        && temp.getY() <= Math.max(linesArray[i].start.getY(), linesArray[i].end.getY())
-                        && temp.getY() >= Math.min(linesArray[i].start.getY(), linesArray[i].end.getY())) {
-                    points.add(this.intersectionWith(linesArray[i]));
-                }
+            Line edge = linesArray[i];
+            // The line crosses the edge only if the ends of the edge are on different sides of it, or on it.
+            // Equal sides mean the edge is parallel to the line, or both of its ends are on the same side.
+            double startSide = this.sideOf(edge.start.getX(), edge.start.getY());
+            double endSide = this.sideOf(edge.end.getX(), edge.end.getY());
+            if (startSide * endSide > 0 || startSide == endSide) {
+                continue;
             }
-        }
-        if (points.size() == 1) {
-            return points.get(0);
-        }
-        points = checkBallDirection(points, ball);
-        if (points.size() == 0) {
-            return null;
-        } else {
-            Point[] pointsArray = new Point[points.size()];
-            for (int i = 0; i < points.size(); i++) {
-                pointsArray[i] = points.get(i);
+            double u = startSide / (startSide - endSide);
+            out.setLocation(edge.start.getX() + u * edge.dirX, edge.start.getY() + u * edge.dirY);
+            count++;
+            if (count == 1) {
+                firstX = out.getX();
+                firstY = out.getY();
             }
-            for (int i = 0; i < points.size(); i++) {
-                for (int j = 0; j < points.size(); j++) {
-                    if (pointsArray[i].equals(pointsArray[j])) {
-                        continue;
-                    }
-                    if (this.start.distance(points.get(i)) - this.start.distance(points.get(j)) > 0) {
-                        pointsArray[i] = pointsArray[j];
-                        continue;
-                    } else {
-                        pointsArray[j] = pointsArray[i];
-                        continue;
-                    }
+            if (isInDirection(out, dx, dy)) {
+                double distance = this.start.distance(out);
+                if (!found || distance < closestDistance) {
+                    found = true;
+                    closestX = out.getX();
+                    closestY = out.getY();
+                    closestDistance = distance;
                 }
             }
-            return pointsArray[0];
         }
+        if (count == 1) {
+            out.setLocation(firstX, firstY);
+            return true;
+        }
+        if (!found) {
+            return false;
+        }
+        out.setLocation(closestX, closestY);
+        return true;
     }
 
     /**
@@ -275,32 +283,59 @@ public class Line {
         Iterator<Point> iterator = points.iterator();
 
         while (iterator.hasNext()) {
-            Point point = iterator.next();
-
-
-            //Checks which quarter on the x,y axis we are on and limits possibilites accordingly for collisions.
-            if (ball.velocity.dx > 0 && ball.velocity.dy > 0) {
-                if (point.getX() < ball.getX() || point.getY() < ball.getY()) {
-                    iterator.remove();
-                }
-            } else if (ball.velocity.dx > 0 && ball.velocity.dy < 0) {
-                if (point.getX() < ball.getX() || point.getY() > ball.getY()) {
-                    iterator.remove();
-                }
-            } else if (ball.velocity.dx < 0 && ball.velocity.dy > 0) {
-                if (point.getX() > ball.getX() || point.getY() < ball.getY()) {
-                    iterator.remove();
-                }
-            } else if (ball.velocity.dx < 0 && ball.velocity.dy < 0) {
-                if (point.getX() > ball.getX() || point.getY() > ball.getY()) {
-                    iterator.remove();
-                }
+            if (!isInBallDirection(iterator.next(), ball)) {
+                iterator.remove();
             }
         }
 
         return points;
     }
 
+    /**
+     * Checks if a single intersection point lies in the direction the ball is moving.
+     *
+     * @param point the intersection point to be checked
+     * @param ball  the ball for which the direction is checked
+     * @return true if the point is relevant based on the ball's direction, false otherwise
+     */
+    public boolean isInBallDirection(Point point, Ball ball) {
+        //Checks which quarter on the x,y axis we are on and limits possibilites accordingly for collisions.
+        if (ball.velocity.dx > 0 && ball.velocity.dy > 0) {
+            return !(point.getX() < ball.getX() || point.getY() < ball.getY());
+        } else if (ball.velocity.dx > 0 && ball.velocity.dy < 0) {
+            return !(point.getX() < ball.getX() || point.getY() > ball.getY());
+        } else if (ball.velocity.dx < 0 && ball.velocity.dy > 0) {
+            return !(point.getX() > ball.getX() || point.getY() < ball.getY());
+        } else if (ball.velocity.dx < 0 && ball.velocity.dy < 0) {
+            return !(point.getX() > ball.getX() || point.getY() > ball.getY());
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a point lies in the direction of movement, as seen from the truncated start of the line.
+     * This is the same check as isInBallDirection for a trajectory that starts at the center of the ball.
+     *
+     * @param point the intersection point to be checked
+     * @param dx    the change in x-coordinate per step of the moving object
+     * @param dy    the change in y-coordinate per step of the moving object
+     * @return true if the point is relevant based on the direction of movement, false otherwise
+     */
+    public boolean isInDirection(Point point, double dx, double dy) {
+        int x = (int) this.start.getX();
+        int y = (int) this.start.getY();
+        if (dx > 0 && dy > 0) {
+            return !(point.getX() < x || point.getY() < y);
+        } else if (dx > 0 && dy < 0) {
+            return !(point.getX() < x || point.getY() > y);
+        } else if (dx < 0 && dy > 0) {
+            return !(point.getX() > x || point.getY() < y);
+        } else if (dx < 0 && dy < 0) {
+            return !(point.getX() > x || point.getY() > y);
+        }
+        return true;
+    }
+
     /**
      * Checks if the current line segment is equal to another line segment.
      *
@@ -308,14 +343,7 @@ public class Line {
      * @return true if the line segments are equal, false otherwise
      */
     public boolean equals(Line other) {
-        if (this.findSlope() == other.findSlope()) {
-            if (this.start.equals(other.start) && this.end.equals(other.end)) {
-                return true;
-            }
-            return false;
-        } else {
-            return false;
-        }
+        return this.start.equals(other.start) && this.end.equals(other.end);
     }
 
     /**
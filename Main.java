@@ -4,19 +4,268 @@
  * @since 2024-02-01
  */
 // Roie Amsalem 322535436
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * The Main class contains the main method to launch the Arkanoid game.
  */
 public class Main {
 
+    private static final long DEFAULT_HEADLESS_TICKS = 100000;
+    // Ten seconds of play between the snapshots of a recording.
+    private static final int SNAPSHOT_INTERVAL = 600;
+    private static final int DEFAULT_BOUNCES = 4;
+    private static final int DEFAULT_PARALLEL_BALLS = 1000;
+
     /**
-     * The main method initializes and runs the Arkanoid game.
+     * The main method initializes and runs the Arkanoid game. The options are:
+     * "--level file" plays a level loaded from a text or binary level file instead of the built-in layout,
+     * "--record file" records the game into a replay log,
+     * "--headless [ticks]" simulates the game without a GUI and prints the achieved ticks per second,
+     * "--capture dir [png|raw]" runs headless too, drawing every tick offscreen and writing the frames to the
+     * directory, as PNG files or as one raw RGB file,
+     * "--replay file [--from tick]" plays a replay log headlessly from the given tick to its end, and
+     * "--convert-level in out" converts a level file to the binary format,
+     * "--simulate worlds [ticks]" runs many headless worlds in parallel, with the paddle following the ball,
+     * and prints what they achieved,
+     * "--ai" lets a controller that predicts where the balls come down steer the paddle, in every mode,
+     * "--batch" draws every frame through a render batch that groups the drawing by color,
+     * "--tree" indexes the collidables in a dynamic AABB tree instead of a uniform grid,
+     * "--ccd [bounces]" sweeps the balls with continuous collision detection, bouncing at most the given
+     * number of times per tick, instead of casting their trajectory lines,
+     * "--parallel [balls]" starts the game with the given number of balls and moves them on a physics pool
+     * with one thread per processor, and
+     * "--metrics [file]" records runtime metrics, shows them on screen and dumps them to the file
+     * (or, without a GUI, to the console) when the game ends.
      *
-     * @param args command line arguments (unused)
+     * @param args command line arguments
+     * @throws IOException if a level or replay file cannot be read or written
      */
-    public static void main(String[] args) {
-        Game game = new Game();
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2 && args[0].equals("--convert-level")) {
+            Level level = loadLevel(Paths.get(args[1]));
+            LevelLoader.writeBinary(level, Paths.get(args[2]));
+            return;
+        }
+        Level level = null;
+        Path recordPath = null;
+        Path replayPath = null;
+        long from = 0;
+        long headlessTicks = -1;
+        int worlds = 0;
+        long worldTicks = DEFAULT_HEADLESS_TICKS;
+        boolean batch = false;
+        boolean tree = false;
+        int bounces = 0;
+        int parallelBalls = 0;
+        boolean ai = false;
+        Path capturePath = null;
+        FrameRecorder.Format captureFormat = FrameRecorder.Format.PNG;
+        Path metricsPath = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--metrics")) {
+                // Metrics.ENABLED is read once, so this must happen before any game code runs.
+                System.setProperty("arkanoid.metrics", "true");
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    metricsPath = Paths.get(args[++i]);
+                }
+            }
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--level") && i + 1 < args.length) {
+                level = loadLevel(Paths.get(args[++i]));
+            } else if (args[i].equals("--record") && i + 1 < args.length) {
+                recordPath = Paths.get(args[++i]);
+            } else if (args[i].equals("--replay") && i + 1 < args.length) {
+                replayPath = Paths.get(args[++i]);
+            } else if (args[i].equals("--from") && i + 1 < args.length) {
+                from = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--simulate") && i + 1 < args.length) {
+                worlds = Integer.parseInt(args[++i]);
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    worldTicks = Long.parseLong(args[++i]);
+                }
+            } else if (args[i].equals("--ai")) {
+                ai = true;
+            } else if (args[i].equals("--batch")) {
+                batch = true;
+            } else if (args[i].equals("--tree")) {
+                tree = true;
+            } else if (args[i].equals("--ccd")) {
+                bounces = DEFAULT_BOUNCES;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    bounces = Integer.parseInt(args[++i]);
+                }
+            } else if (args[i].equals("--parallel")) {
+                parallelBalls = DEFAULT_PARALLEL_BALLS;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    parallelBalls = Integer.parseInt(args[++i]);
+                }
+            } else if (args[i].equals("--headless")) {
+                headlessTicks = DEFAULT_HEADLESS_TICKS;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    headlessTicks = Long.parseLong(args[++i]);
+                }
+            } else if (args[i].equals("--capture") && i + 1 < args.length) {
+                capturePath = Paths.get(args[++i]);
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    captureFormat = FrameRecorder.Format.valueOf(args[++i].toUpperCase());
+                }
+            }
+        }
+        if (capturePath != null && headlessTicks < 0) {
+            headlessTicks = DEFAULT_HEADLESS_TICKS;
+        }
+        if (worlds > 0) {
+            simulate(worlds, worldTicks, level, ai);
+            dumpMetrics(metricsPath);
+            return;
+        }
+        if (replayPath != null) {
+            replay(Replay.load(replayPath), level, from);
+            dumpMetrics(metricsPath);
+            return;
+        }
+
+        Game game;
+        if (parallelBalls > 0) {
+            game = new Game(new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+            game.setStartingBalls(parallelBalls);
+        } else {
+            game = new Game();
+        }
+        game.setLevel(level);
+        game.setRenderBatching(batch);
+        game.setAabbTree(tree);
+        game.setContinuousCollision(bounces);
+        if (ai) {
+            game.setController(new InterceptController());
+        }
+        ReplayRecorder recorder = null;
+        if (recordPath != null) {
+            recorder = new ReplayRecorder(recordPath, game, SNAPSHOT_INTERVAL);
+            game.setRecorder(recorder);
+        }
+        if (headlessTicks >= 0) {
+            FrameRecorder capture = null;
+            if (capturePath != null) {
+                capture = new FrameRecorder(capturePath, captureFormat, 800, 600);
+                game.setFrameCapture(capture);
+            }
+            game.initializeHeadless(new ScriptedKeyboard());
+            double ticksPerSecond = game.runHeadless(headlessTicks, false);
+            System.out.printf("%d ticks, %.0f ticks/second, %d blocks destroyed%n", headlessTicks, ticksPerSecond,
+                    game.getRemovedBlocks());
+            System.out.println(game.getFrameStats());
+            if (capture != null) {
+                capture.close();
+                System.out.printf("%d frames written to %s%n", capture.getFramesWritten(), capturePath);
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+            dumpMetrics(metricsPath);
+            return;
+        }
+        if (metricsPath != null) {
+            Path dumpPath = metricsPath;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dumpMetrics(dumpPath);
+                } catch (IOException e) {
+                    System.err.println("Could not write the metrics: " + e.getMessage());
+                }
+            }));
+        }
+        if (recorder != null) {
+            // The game runs until the window is closed, so close the log on the way out.
+            ReplayRecorder log = recorder;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the replay log: " + e.getMessage());
+                }
+            }));
+        }
         game.initialize();
         game.run();
     }
+
+    /**
+     * Plays a replay headlessly from a tick to its end and prints how fast it ran.
+     *
+     * @param replay the replay to play
+     * @param level  the level the replay was recorded on, or null for the built-in layout
+     * @param from   the tick to start playing from
+     */
+    private static void replay(Replay replay, Level level, long from) {
+        ReplayPlayer player = new ReplayPlayer(replay, level);
+        long seekStart = System.nanoTime();
+        player.seek(from);
+        System.out.printf("Seeked to tick %d of %d in %.2f ms%n", player.getTick(), replay.ticks(),
+                (System.nanoTime() - seekStart) / 1e6);
+        long start = player.getTick();
+        double ticksPerSecond = player.playToEnd();
+        System.out.printf("%d ticks, %.0f ticks/second, %d blocks destroyed%n", replay.ticks() - start,
+                ticksPerSecond, player.getGame().getRemovedBlocks());
+        System.out.println(player.getGame().getFrameStats());
+    }
+
+    /**
+     * Runs a batch of headless worlds on all the processors and prints what they achieved.
+     * Every world follows the ball with a different dead zone, from 0 to 19 pixels, as a small parameter sweep,
+     * or predicts where the balls come down.
+     *
+     * @param worlds the number of worlds
+     * @param ticks  the most ticks a world runs
+     * @param level  the level the worlds play, or null for the built-in layout
+     * @param ai     whether the worlds use the predicting controller instead of following the ball
+     */
+    private static void simulate(int worlds, long ticks, Level level, boolean ai) {
+        WorldBatch batch = new WorldBatch(level, ticks);
+        for (int i = 0; i < worlds; i++) {
+            batch.addWorld(i, ai ? new InterceptController() : new FollowController(i % 20));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            System.out.println(batch.run(pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the metrics to a file, or prints them if no file is given. Does nothing if metrics are off.
+     *
+     * @param path the file to write the metrics to, or null
+     * @throws IOException if the file cannot be written
+     */
+    private static void dumpMetrics(Path path) throws IOException {
+        if (!Metrics.ENABLED) {
+            return;
+        }
+        if (path != null) {
+            Metrics.REGISTRY.dumpTo(path);
+        } else {
+            System.out.println(Metrics.REGISTRY);
+        }
+    }
+
+    /**
+     * Loads a level file and prints how long it took.
+     *
+     * @param path the level file
+     * @return the loaded level
+     * @throws IOException if the level file cannot be read
+     */
+    private static Level loadLevel(Path path) throws IOException {
+        Level level = LevelLoader.load(path);
+        System.out.printf("Loaded level \"%s\": %d blocks in %.2f ms%n", level.getName(), level.size(),
+                level.getLoadNanos() / 1e6);
+        return level;
+    }
 }
@@ -0,0 +1,87 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Metrics class holds the metrics recorded by the game loop, the sprites and the collision queries.
+ * Metrics are off unless the game is started with -Darkanoid.metrics=true. ENABLED is a constant, so when
+ * it is false the JIT removes every "if (Metrics.isRecording())" block and the metrics cost nothing.
+ * Counters are closed into their per-frame histograms once per simulation tick.
+ * The metrics are recorded from one thread at a time, so recording is suspended while something runs games
+ * on several threads at once, like a WorldBatch. Recording sites check isRecording for that reason.
+ */
+public final class Metrics {
+
+    /**
+     * Whether metrics are recorded, read once from the arkanoid.metrics system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("arkanoid.metrics");
+
+    // The number of callers that suspended recording and did not resume it yet.
+    private static final AtomicInteger SUSPENSIONS = new AtomicInteger();
+
+    /**
+     * The registry holding all the metrics below.
+     */
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    /**
+     * The number of closest-collision and sweep queries against the game environment.
+     */
+    public static final Counter COLLISION_QUERIES = REGISTRY.counter("collision queries");
+
+    /**
+     * The number of collidables tested against a trajectory by those queries.
+     */
+    public static final Counter INTERSECTION_TESTS = REGISTRY.counter("intersection tests");
+
+    /**
+     * The number of queries that found a collision.
+     */
+    public static final Counter COLLISION_HITS = REGISTRY.counter("collision hits");
+
+    /**
+     * The time taken by a closest-collision query, in nanoseconds.
+     */
+    public static final Histogram QUERY_NANOS = REGISTRY.histogram("collision query ns");
+
+    /**
+     * The time taken to update all sprites for a tick, in nanoseconds.
+     */
+    public static final Histogram UPDATE_NANOS = REGISTRY.histogram("sprite update ns");
+
+    /**
+     * The time taken to draw all sprites, in nanoseconds.
+     */
+    public static final Histogram DRAW_NANOS = REGISTRY.histogram("sprite draw ns");
+
+    /**
+     * The time between the start of two frames drawn by Game.run, in nanoseconds.
+     */
+    public static final Histogram FRAME_NANOS = REGISTRY.histogram("frame ns");
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks whether metrics are recorded right now: they are enabled and recording is not suspended.
+     * When metrics are off this is a constant false, so the recording sites are still removed.
+     *
+     * @return true if metrics should be recorded
+     */
+    public static boolean isRecording() {
+        return ENABLED && SUSPENSIONS.get() == 0;
+    }
+
+    /**
+     * Suspends recording until a matching call to resume.
+     */
+    public static void suspend() {
+        SUSPENSIONS.incrementAndGet();
+    }
+
+    /**
+     * Resumes recording once every suspend has been matched.
+     */
+    public static void resume() {
+        SUSPENSIONS.decrementAndGet();
+    }
+}
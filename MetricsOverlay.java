@@ -0,0 +1,45 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.util.List;
+
+/**
+ * The MetricsOverlay class draws the current metrics as text in the corner of the screen.
+ * The text is only rebuilt a few times a second, so drawing the overlay stays cheap.
+ */
+public class MetricsOverlay {
+
+    private static final long REFRESH_NANOS = 500000000L;
+    private static final int FONT_SIZE = 12;
+    private static final int LINE_HEIGHT = 14;
+
+    private final MetricsRegistry registry;
+    private List<String> lines;
+    private long refreshedAt;
+
+    /**
+     * Constructs an overlay showing the metrics of the given registry.
+     *
+     * @param registry the registry to show
+     */
+    public MetricsOverlay(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Draws the metrics on the given surface, rebuilding the text if it is older than half a second.
+     *
+     * @param d the surface to draw on
+     */
+    public void drawOn(DrawSurface d) {
+        long now = System.nanoTime();
+        if (lines == null || now - refreshedAt >= REFRESH_NANOS) {
+            lines = registry.lines();
+            refreshedAt = now;
+        }
+        d.setColor(Color.white);
+        for (int i = 0; i < lines.size(); i++) {
+            d.drawText(5, LINE_HEIGHT * (i + 1), lines.get(i), FONT_SIZE);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MetricsRegistry class keeps named counters and histograms, and dumps them on demand.
+ * Metrics are created once, up front, and then recorded into directly, so recording never looks anything up.
+ */
+public class MetricsRegistry {
+
+    private final List<Counter> counters = new ArrayList<>();
+    private final List<Histogram> histograms = new ArrayList<>();
+
+    /**
+     * Gets the counter with the given name, creating it if there is none.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public synchronized Counter counter(String name) {
+        for (Counter counter : counters) {
+            if (counter.getName().equals(name)) {
+                return counter;
+            }
+        }
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    /**
+     * Gets the histogram with the given name, creating it if there is none.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public synchronized Histogram histogram(String name) {
+        for (Histogram histogram : histograms) {
+            if (histogram.getName().equals(name)) {
+                return histogram;
+            }
+        }
+        Histogram histogram = new Histogram(name);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Ends a frame, recording how much every counter went up during it.
+     */
+    public void endFrame() {
+        for (int i = 0; i < counters.size(); i++) {
+            counters.get(i).endFrame();
+        }
+    }
+
+    /**
+     * Sets all counters back to zero and empties all histograms.
+     */
+    public void reset() {
+        for (Counter counter : counters) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Describes every metric on its own line: the total and per-frame distribution of the counters,
+     * and the distribution of the histograms.
+     *
+     * @return the lines describing the metrics
+     */
+    public List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        for (Counter counter : counters) {
+            Histogram perFrame = counter.perFrame();
+            lines.add(String.format("%s total %d, per frame mean %.1f p99 %d max %d", counter.getName(),
+                    counter.value(), perFrame.mean(), perFrame.percentile(99), perFrame.max()));
+        }
+        for (Histogram histogram : histograms) {
+            lines.add(histogram.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the description of every metric to a file, replacing it.
+     *
+     * @param path the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void dumpTo(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (String line : lines()) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * Describes every metric, one per line.
+     *
+     * @return the description of the metrics
+     */
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), lines());
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * The MovingSprite interface represents sprites that change where they are drawn over time,
+ * so a renderer that caches the static parts of the screen knows which areas to redraw.
+ */
+public interface MovingSprite extends Sprite {
+
+    /**
+     * Adds the screen areas covered by drawOn(d, alpha) to the given regions.
+     *
+     * @param regions the regions to add the areas to
+     * @param alpha   how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    void addDrawnArea(DirtyRegions regions, double alpha);
+}
@@ -0,0 +1,79 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Polygon;
+
+/**
+ * The NullDrawSurface class is a DrawSurface that ignores everything drawn on it.
+ * It lets the game and its sprites run without a display, for example on build machines.
+ */
+public class NullDrawSurface implements DrawSurface {
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Constructs a null surface that reports the given size.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public NullDrawSurface(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+    }
+
+    @Override
+    public void setColor(Color color) {
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
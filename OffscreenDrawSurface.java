@@ -0,0 +1,126 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.VolatileImage;
+
+/**
+ * The OffscreenDrawSurface class is an ImageDrawSurface for rendering whole frames offscreen, one after the
+ * other, for example to capture them. Every frame is drawn between beginFrame and endFrame, after which the
+ * image holds the finished frame. A frame can be drawn from scratch, or on top of the previous one as long
+ * as beginFrame reports that it is still there.
+ * <p>
+ * When acceleration is asked for and a display is available, the frames are drawn into a VolatileImage,
+ * which Java2D can keep in video memory, and copied into the image at the end of every frame. In a headless
+ * JVM, or when the volatile image cannot be created, the surface draws straight into the image instead.
+ */
+public class OffscreenDrawSurface extends ImageDrawSurface {
+
+    private final GraphicsConfiguration configuration;
+    private VolatileImage volatileImage;
+    // Draws into the image, for copying the volatile image into it, or null when there is no volatile image.
+    private Graphics2D imageGraphics;
+
+    /**
+     * Constructs an offscreen surface of the given size.
+     *
+     * @param width       the width of the surface
+     * @param height      the height of the surface
+     * @param accelerated whether to draw into a volatile image when one is available
+     */
+    public OffscreenDrawSurface(int width, int height, boolean accelerated) {
+        super(width, height);
+        this.configuration = accelerated && !GraphicsEnvironment.isHeadless()
+                ? GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                : null;
+        if (configuration != null) {
+            this.imageGraphics = getImage().createGraphics();
+            createVolatileImage();
+        }
+    }
+
+    /**
+     * Checks whether the frames are drawn into a volatile image.
+     *
+     * @return true if the surface is accelerated, false if it draws straight into the image
+     */
+    public boolean isAccelerated() {
+        return volatileImage != null;
+    }
+
+    /**
+     * Prepares the surface for drawing a frame on top of the previous one.
+     * A volatile image that no longer suits the display is created again.
+     *
+     * @return true if the surface still holds the previous frame, false if its contents were lost and the
+     * whole frame has to be drawn
+     */
+    public boolean beginFrame() {
+        if (volatileImage == null) {
+            return true;
+        }
+        int status = volatileImage.validate(configuration);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            volatileImage.flush();
+            createVolatileImage();
+            return false;
+        }
+        return status == VolatileImage.IMAGE_OK;
+    }
+
+    /**
+     * Prepares the surface for drawing a frame from scratch and fills it with a color.
+     *
+     * @param background the color to fill the frame with
+     */
+    public void beginFrame(Color background) {
+        beginFrame();
+        setColor(background);
+        fillRectangle(0, 0, getWidth(), getHeight());
+    }
+
+    /**
+     * Finishes a frame, so the image holds it.
+     *
+     * @return true if the frame is complete, false if the contents of the volatile image were lost while it
+     * was drawn and the frame has to be drawn again
+     */
+    public boolean endFrame() {
+        if (volatileImage == null) {
+            return true;
+        }
+        if (volatileImage.contentsLost()) {
+            return false;
+        }
+        imageGraphics.drawImage(volatileImage, 0, 0, null);
+        return !volatileImage.contentsLost();
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (imageGraphics != null) {
+            imageGraphics.dispose();
+        }
+        if (volatileImage != null) {
+            volatileImage.flush();
+        }
+    }
+
+    /**
+     * Creates the volatile image and draws into it from now on, or draws straight into the image if it cannot
+     * be created. The graphics drawn with so far, those of the previous volatile image when it is created
+     * again, are disposed by setGraphics.
+     */
+    private void createVolatileImage() {
+        volatileImage = configuration.createCompatibleVolatileImage(getWidth(), getHeight());
+        if (volatileImage != null) {
+            setGraphics(volatileImage.createGraphics());
+        } else {
+            // Nothing is copied into the image any more, so its copying graphics are released too.
+            imageGraphics.dispose();
+            imageGraphics = null;
+            setGraphics(getImage().createGraphics());
+        }
+    }
+}
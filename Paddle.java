@@ -13,17 +13,32 @@ import java.awt.*;
  * The Paddle class represents the player-controlled paddle in a game. It implements both the Sprite and Collidable
  * interfaces to participate in the game dynamics.
  */
-public class Paddle implements Sprite, Collidable {
+public class Paddle implements MovingSprite, Collidable {
 
     private biuoop.KeyboardSensor keyboard;
     private Rectangle rect;
     private int speed;
+    private GameEnvironment environment;
 
     private final int WIDTH = 800;
     private final int HEIGHT = 600;
     // Makes the circular motion of the paddle smoother.
     private final int PADDLE_MOVEMENT = 20;
 
+    // The top of the paddle is split into regions from left to right, each sending the ball off at its own angle.
+    private static final int REGIONS = 5;
+    private static final int REGION_WIDTH = 20;
+    private static final Velocity[] REGION_VELOCITIES = new Velocity[REGIONS];
+
+    static {
+        for (int i = 0; i < REGIONS; i++) {
+            REGION_VELOCITIES[i] = Velocity.fromAngleAndSpeed(300 + i * 30, 5);
+        }
+    }
+
+    // The x-coordinates of the borders between the regions, updated whenever the paddle moves.
+    private final double[] regionX = new double[REGIONS + 1];
+
     /**
      * Creates a Paddle with a specified keyboard sensor and rectangle.
      *
@@ -31,23 +46,68 @@ public class Paddle implements Sprite, Collidable {
      * @param rect  the rectangle representing the paddle's position and size
      */
     public Paddle(biuoop.GUI gui, Rectangle rect) {
-        this.keyboard = gui.getKeyboardSensor();
+        this(gui.getKeyboardSensor(), rect);
+    }
+
+    /**
+     * Creates a Paddle controlled by the given keyboard sensor, which does not have to belong to a GUI.
+     *
+     * @param keyboard  the keyboard sensor controlling the paddle
+     * @param rect      the rectangle representing the paddle's position and size
+     */
+    public Paddle(biuoop.KeyboardSensor keyboard, Rectangle rect) {
+        this.keyboard = keyboard;
         this.rect = rect;
         this.speed = 5;
+        updateRegions();
     }
 
     /**
      * Moves the paddle to the left based on the defined speed.
      */
     public void moveLeft() {
-        this.rect.updateX(-this.speed);
+        moveBy(-this.speed);
     }
 
     /**
      * Moves the paddle to the right based on the defined speed.
      */
     public void moveRight() {
-        this.rect.updateX(this.speed);
+        moveBy(this.speed);
+    }
+
+    /**
+     * Moves the paddle along the x-axis and updates the borders of its regions.
+     *
+     * @param dx the distance to move by
+     */
+    private void moveBy(int dx) {
+        this.rect.updateX(dx);
+        updateRegions();
+    }
+
+    /**
+     * Computes the x-coordinates of the borders between the regions of the top of the paddle.
+     */
+    private void updateRegions() {
+        for (int i = 0; i <= REGIONS; i++) {
+            regionX[i] = this.rect.getTopX() + REGION_WIDTH * i;
+        }
+    }
+
+    /**
+     * Moves the paddle so its left edge is at the given x-coordinate.
+     *
+     * @param x  the new x-coordinate of the left edge of the paddle
+     */
+    public void setX(int x) {
+        if (x == this.rect.getTopX()) {
+            return;
+        }
+        moveBy(x - this.rect.getTopX());
+        if (this.environment != null) {
+            this.environment.updateCollidable(this);
+        }
     }
 
     /**
@@ -56,6 +116,7 @@ public class Paddle implements Sprite, Collidable {
      * Handles wrapping around the screen if the paddle moves beyond the screen borders.
      */
     public void timePassed() {
+        int previousX = this.rect.getTopX();
         if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
             moveLeft();
         }
@@ -63,9 +124,13 @@ public class Paddle implements Sprite, Collidable {
             moveRight();
         }
         if (this.rect.getTopX() > WIDTH) {
-            this.rect.updateX(-WIDTH - PADDLE_MOVEMENT);
+            moveBy(-WIDTH - PADDLE_MOVEMENT);
         } else if (this.rect.getBottomX() < 0) {
-            this.rect.updateX(WIDTH + PADDLE_MOVEMENT);
+            moveBy(WIDTH + PADDLE_MOVEMENT);
+        }
+        // Keep the spatial index in sync with the new position of the paddle.
+        if (this.environment != null && this.rect.getTopX() != previousX) {
+            this.environment.updateCollidable(this);
         }
     }
 
@@ -79,6 +144,17 @@ public class Paddle implements Sprite, Collidable {
         this.getCollisionRectangle().drawOn(d);
     }
 
+    /**
+     * Adds the area of the paddle to the given regions.
+     *
+     * @param regions the regions to add the area to
+     * @param alpha   unused, the paddle is drawn where it is
+     */
+    public void addDrawnArea(DirtyRegions regions, double alpha) {
+        regions.add(this.rect.getTopX(), this.rect.getTopY(),
+                this.rect.getBottomX() - this.rect.getTopX(), this.rect.getBottomY() - this.rect.getTopY());
+    }
+
     /**
      * Retrieves the collision rectangle of the paddle.
      *
@@ -96,40 +172,30 @@ public class Paddle implements Sprite, Collidable {
      * @return                    the new velocity after the collision
      */
     public Velocity hit(Point collisionPoint, Velocity currentVelocity) {
-        Point p1 = new Point(this.rect.getTopX(), this.rect.getTopY());
-        Point p2 = new Point(this.rect.getBottomX(), this.rect.getTopY());
-        Line topOfPaddle = new Line(p1, p2);
-        Line[] linesOfTop = splitPaddle(topOfPaddle);
-        for (int i = 0; i < linesOfTop.length; i++) {
-            // All y values will be the same so this stays as rect to simplify.
-            if (Threshold.areEqual(this.rect.getTopY(), collisionPoint.getY())
-                    && collisionPoint.getX() < linesOfTop[i].end.getX()
-                    && collisionPoint.getX() > linesOfTop[i].start.getX()) {
-                return Velocity.fromAngleAndSpeed(300 + i * 30, 5);
-            }
-        }
-        return currentVelocity;
+        Velocity newVelocity = new Velocity(currentVelocity.dx, currentVelocity.dy);
+        hit(collisionPoint, currentVelocity, newVelocity);
+        return newVelocity;
     }
 
     /**
-     * Splits the given line into multiple lines representing the top of the paddle.
+     * Handles the paddle's collision response when hit by a ball, writing the new velocity into the given one.
+     * A hit on the top of the paddle sends the ball off at the angle of the region it hit.
      *
-     * @param line  the original line to be split
-     * @return      an array of lines representing the top of the paddle
+     * @param collisionPoint      the point where the collision occurred
+     * @param currentVelocity     the current velocity of the colliding object
+     * @param result              the velocity to set to the new velocity, which may be currentVelocity
      */
-    public Line[] splitPaddle(Line line) {
-        Line[] linesOfTop = new Line[5];
-
-        Point[] points = new Point[6];
-        for (int i = 0; i < points.length; i++) {
-            points[i] = new Point(line.start.getX() + 20 * i, line.start.getX() + 20 * (i + 1));
-        }
-
-        for (int i = 0; i < linesOfTop.length; i++) {
-            linesOfTop[i] = new Line(points[i], points[i + 1]);
+    public void hit(Point collisionPoint, Velocity currentVelocity, Velocity result) {
+        // All y values will be the same so this stays as rect to simplify.
+        if (Threshold.areEqual(this.rect.getTopY(), collisionPoint.getY())) {
+            for (int i = 0; i < REGIONS; i++) {
+                if (collisionPoint.getX() < regionX[i + 1] && collisionPoint.getX() > regionX[i]) {
+                    result.set(REGION_VELOCITIES[i].dx, REGION_VELOCITIES[i].dy);
+                    return;
+                }
+            }
         }
-
-        return linesOfTop;
+        result.set(currentVelocity.dx, currentVelocity.dy);
     }
 
     /**
@@ -138,6 +204,7 @@ public class Paddle implements Sprite, Collidable {
      * @param game  the Game to which the paddle will be added
      */
     public void addToGame(Game game) {
+        this.environment = game.getEnvironment();
         game.addCollidable(this);
         game.addSprite(this);
     }
@@ -0,0 +1,15 @@
+/**
+ * The PaddleController interface steers the paddle of a game without a keyboard, by deciding once per tick
+ * which of the left and right keys are held. A controller may keep state between ticks, so every game
+ * needs its own controller.
+ */
+public interface PaddleController {
+
+    /**
+     * Decides which keys are held during the next tick of a game.
+     *
+     * @param game the game whose paddle is steered
+     * @return the key state, a combination of ReplayKeyboard.LEFT and ReplayKeyboard.RIGHT
+     */
+    int keys(Game game);
+}
@@ -31,8 +31,7 @@ public class Point {
      * @return the distance between the two points
      */
     public double distance(Point other) {
-        return Math.sqrt((this.x - other.x) * (this.x - other.x)
-                + (this.y - other.y) * (this.y - other.y));
+        return distance(other.getX(), other.getY());
     }
 
     /**
@@ -42,7 +41,7 @@ public class Point {
      * @return true if the points are equal, false otherwise
      */
     public boolean equals(Point other) {
-        return (this.x == other.x && this.y == other.y);
+        return (this.getX() == other.getX() && this.getY() == other.getY());
     }
 
     /**
@@ -66,4 +65,37 @@ public class Point {
     public void updateX(int speed) {
         this.x += speed;
     }
+
+    /**
+     * Moves this point to the specified coordinates in place.
+     *
+     * @param newX the new x-coordinate
+     * @param newY the new y-coordinate
+     */
+    public void setLocation(double newX, double newY) {
+        this.x = newX;
+        this.y = newY;
+    }
+
+    /**
+     * Copies the coordinates of another point into this point.
+     *
+     * @param other the point to copy
+     */
+    public void setLocation(Point other) {
+        setLocation(other.getX(), other.getY());
+    }
+
+    /**
+     * Calculates the distance between this point and the specified coordinates.
+     *
+     * @param otherX the x-coordinate of the other point
+     * @param otherY the y-coordinate of the other point
+     * @return the distance between the two points
+     */
+    public double distance(double otherX, double otherY) {
+        double x = this.getX();
+        double y = this.getY();
+        return Math.sqrt((x - otherX) * (x - otherX) + (y - otherY) * (y - otherY));
+    }
 }
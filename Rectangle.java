@@ -6,6 +6,7 @@
 // Roie Amsalem 322535436
 
 import biuoop.DrawSurface;
+import java.util.ArrayList;
 import java.util.List;
 import java.awt.*;
 
@@ -19,6 +20,22 @@ public class Rectangle {
     private Point bottomRight;
     private Color color;
 
+    // Bounds and edges are cached, and only refreshed when the rectangle moves through updateX or moveBy.
+    private int topX;
+    private int topY;
+    private int bottomX;
+    private int bottomY;
+    private final Point topRightCorner = new Point(0, 0);
+    private final Point bottomRightCorner = new Point(0, 0);
+    private final Point bottomLeftCorner = new Point(0, 0);
+    private final Point topLeftCorner = new Point(0, 0);
+    private final Line[] edges = {
+            new Line(topLeftCorner, topRightCorner),
+            new Line(topRightCorner, bottomRightCorner),
+            new Line(bottomRightCorner, bottomLeftCorner),
+            new Line(bottomLeftCorner, topLeftCorner)
+    };
+
     /**
      * Constructs a new Rectangle object with the specified top-left and bottom-right points, and color.
      *
@@ -30,6 +47,7 @@ public class Rectangle {
         this.topLeft = topLeft;
         this.bottomRight = bottomRight;
         this.color = color;
+        refresh();
     }
 
     /**
@@ -43,6 +61,7 @@ public class Rectangle {
         this.topLeft = upperLeft;
         this.bottomRight = new Point(width, height);
         this.color = Color.black;
+        refresh();
     }
 
     /**
@@ -51,7 +70,7 @@ public class Rectangle {
      * @return the x-coordinate of the top-left point
      */
     public int getTopX() {
-        return (int) this.topLeft.getX();
+        return this.topX;
     }
 
     /**
@@ -60,7 +79,7 @@ public class Rectangle {
      * @return the y-coordinate of the top-left point
      */
     public int getTopY() {
-        return (int) this.topLeft.getY();
+        return this.topY;
     }
 
     /**
@@ -69,7 +88,7 @@ public class Rectangle {
      * @return the x-coordinate of the bottom-right point
      */
     public int getBottomX() {
-        return (int) this.bottomRight.getX();
+        return this.bottomX;
     }
 
     /**
@@ -78,7 +97,7 @@ public class Rectangle {
      * @return the y-coordinate of the bottom-right point
      */
     public int getBottomY() {
-        return (int) this.bottomRight.getY();
+        return this.bottomY;
     }
 
     /**
@@ -116,7 +135,7 @@ public class Rectangle {
      */
     public List<Point> intersectionPoints(Line line) {
         Line[] linesArray = linesOfRect();
-        List<Point> points = null;
+        List<Point> points = new ArrayList<>();
         for (int i = 0; i < 4; i++) {
             if (line.isIntersecting(linesArray[i])) {
                 points.add(line.intersectionWith(linesArray[i]));
@@ -127,18 +146,12 @@ public class Rectangle {
 
     /**
      * Returns an array of the four lines forming the rectangle.
+     * The array and its lines are cached by the rectangle and must not be modified by the caller.
      *
      * @return an array of lines
      */
     public Line[] linesOfRect() {
-        Line[] linesArray = new Line[4];
-        linesArray[0] = new Line(this.getUpperLeft(), new Point(this.getBottomX(), this.getTopY()));
-        linesArray[1] = new Line(new Point(this.getBottomX(), this.getTopY()),
-                new Point(this.getBottomX(), this.getBottomY()));
-        linesArray[2] = new Line(new Point(this.getBottomX(), this.getBottomY()),
-                new Point(this.getTopX(), this.getBottomY()));
-        linesArray[3] = new Line(new Point(this.getTopX(), this.getBottomY()), this.getUpperLeft());
-        return linesArray;
+        return this.edges;
     }
 
     /**
@@ -177,5 +190,35 @@ public class Rectangle {
     public void updateX(int speed) {
         this.topLeft.updateX(speed);
         this.bottomRight.updateX(speed);
+        refresh();
+    }
+
+    /**
+     * Moves the frame by the specified offsets.
+     *
+     * @param dx the offset along the x-axis
+     * @param dy the offset along the y-axis
+     */
+    public void moveBy(double dx, double dy) {
+        this.topLeft.setLocation(this.topLeft.getX() + dx, this.topLeft.getY() + dy);
+        this.bottomRight.setLocation(this.bottomRight.getX() + dx, this.bottomRight.getY() + dy);
+        refresh();
+    }
+
+    /**
+     * Recomputes the cached bounds and edges from the top-left and bottom-right points.
+     */
+    private void refresh() {
+        this.topX = (int) this.topLeft.getX();
+        this.topY = (int) this.topLeft.getY();
+        this.bottomX = (int) this.bottomRight.getX();
+        this.bottomY = (int) this.bottomRight.getY();
+        this.topLeftCorner.setLocation(this.topLeft);
+        this.topRightCorner.setLocation(this.bottomX, this.topY);
+        this.bottomRightCorner.setLocation(this.bottomX, this.bottomY);
+        this.bottomLeftCorner.setLocation(this.topX, this.bottomY);
+        for (Line edge : this.edges) {
+            edge.refresh();
+        }
     }
 }
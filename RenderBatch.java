@@ -0,0 +1,270 @@
+import biuoop.DrawSurface;
+
+import java.awt.Color;
+import java.awt.Polygon;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The RenderBatch class is a DrawSurface that collects the draw calls of a frame and submits them to another
+ * surface in bulk, grouped by color so the target changes its color as few times as possible.
+ * Calls to setColor only change the color of the calls that follow and are never submitted on their own,
+ * so setting a color that is already set costs nothing.
+ * <p>
+ * Reordering calls is only safe for calls that do not overlap. Every call is therefore placed in a layer,
+ * the lowest one above every earlier call of another color that it may overlap. Overlaps are tracked on a
+ * coarse grid of cells over the surface, which is conservative: calls sharing no cell share no pixel.
+ * The calls are submitted layer after layer, and within a layer by color, and the result is the same
+ * image as drawing the calls in the order they were made.
+ */
+public class RenderBatch implements DrawSurface {
+
+    private static final int CELL_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // A call's sort key holds its layer, its color and its number, from the most significant bits down.
+    private static final int CALL_BITS = 27;
+    private static final int COLOR_BITS = 15;
+    private static final int LAYER_BITS = 63 - CALL_BITS - COLOR_BITS;
+    private static final long CALL_MASK = (1L << CALL_BITS) - 1;
+
+    private final DisplayList calls;
+    private final int columns;
+    private final int rows;
+    // The highest layer drawn in each cell, 0 if nothing was drawn in it yet, and the color drawn in it.
+    // A call never joins the top layer of a cell in another color, so that layer only ever has one color.
+    private final int[] cellLayer;
+    private final int[] cellColor;
+    private final Map<Color, Integer> colorIds = new HashMap<>();
+    private Color[] colors = new Color[INITIAL_CAPACITY];
+    private int colorCount;
+    private int currentColor;
+    private int[] callColor = new int[INITIAL_CAPACITY];
+    private int[] callLayer = new int[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int maxLayer;
+    private int colorChanges;
+
+    /**
+     * Constructs an empty batch for a surface of the given size.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public RenderBatch(int width, int height) {
+        this.calls = new DisplayList(width, height);
+        this.columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        this.rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        this.cellLayer = new int[columns * rows];
+        this.cellColor = new int[columns * rows];
+        clear();
+    }
+
+    /**
+     * Removes all the collected calls. The color goes back to black.
+     */
+    public void clear() {
+        calls.clear();
+        Arrays.fill(cellLayer, 0);
+        maxLayer = 0;
+        Arrays.fill(colors, 0, colorCount, null);
+        colorIds.clear();
+        colorCount = 0;
+        currentColor = colorId(Color.black);
+    }
+
+    /**
+     * Gets the number of collected calls.
+     *
+     * @return the number of calls
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    /**
+     * Gets the number of times the color of the target surface was set by the last flush.
+     *
+     * @return the number of color changes
+     */
+    public int getColorChanges() {
+        return colorChanges;
+    }
+
+    /**
+     * Submits the collected calls to a surface, layer by layer and grouped by color, and clears the batch.
+     *
+     * @param d the surface to draw on
+     */
+    public void flush(DrawSurface d) {
+        int count = calls.size();
+        // Past the range of the sort key, the calls are submitted in the order they were made.
+        boolean sorted = count <= CALL_MASK && colorCount <= 1 << COLOR_BITS && maxLayer < 1 << LAYER_BITS;
+        for (int n = 0; n < count; n++) {
+            keys[n] = sorted ? (long) callLayer[n] << (CALL_BITS + COLOR_BITS)
+                    | (long) callColor[n] << CALL_BITS | n : n;
+        }
+        if (sorted) {
+            Arrays.sort(keys, 0, count);
+        }
+        colorChanges = 0;
+        int color = -1;
+        for (int k = 0; k < count; k++) {
+            int n = (int) (keys[k] & CALL_MASK);
+            if (callColor[n] != color) {
+                color = callColor[n];
+                d.setColor(colors[color]);
+                colorChanges++;
+            }
+            calls.drawCall(d, n);
+        }
+        clear();
+    }
+
+    /**
+     * Gets the number a color is known by in this batch, giving it a new one if it is new.
+     *
+     * @param color the color
+     * @return the number of the color
+     */
+    private int colorId(Color color) {
+        Integer id = colorIds.get(color);
+        if (id != null) {
+            return id;
+        }
+        if (colorCount == colors.length) {
+            colors = Arrays.copyOf(colors, colorCount * 2);
+        }
+        colors[colorCount] = color;
+        colorIds.put(color, colorCount);
+        return colorCount++;
+    }
+
+    /**
+     * Places the call just recorded in the display list in a layer, given the box of pixels it may touch.
+     *
+     * @param x1 the smallest x of the box
+     * @param y1 the smallest y of the box
+     * @param x2 the largest x of the box
+     * @param y2 the largest y of the box
+     */
+    private void place(int x1, int y1, int x2, int y2) {
+        int n = calls.size() - 1;
+        if (n == callColor.length) {
+            callColor = Arrays.copyOf(callColor, n * 2);
+            callLayer = Arrays.copyOf(callLayer, n * 2);
+            keys = Arrays.copyOf(keys, n * 2);
+        }
+        int column1 = cellOf(Math.min(x1, x2), columns);
+        int column2 = cellOf(Math.max(x1, x2), columns);
+        int row1 = cellOf(Math.min(y1, y2), rows);
+        int row2 = cellOf(Math.max(y1, y2), rows);
+
+        int layer = 1;
+        for (int row = row1; row <= row2; row++) {
+            for (int cell = row * columns + column1; cell <= row * columns + column2; cell++) {
+                int top = cellLayer[cell];
+                layer = Math.max(layer, top == 0 || cellColor[cell] == currentColor ? top : top + 1);
+            }
+        }
+        for (int row = row1; row <= row2; row++) {
+            for (int cell = row * columns + column1; cell <= row * columns + column2; cell++) {
+                cellLayer[cell] = layer;
+                cellColor[cell] = currentColor;
+            }
+        }
+        callLayer[n] = layer;
+        callColor[n] = currentColor;
+        maxLayer = Math.max(maxLayer, layer);
+    }
+
+    /**
+     * Gets the cell row or column a coordinate falls in, clamped to the surface.
+     *
+     * @param v     the coordinate
+     * @param cells the number of cells along the axis
+     * @return the cell along the axis
+     */
+    private static int cellOf(int v, int cells) {
+        return Math.max(0, Math.min(cells - 1, Math.floorDiv(v, CELL_SIZE)));
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int r) {
+        calls.drawCircle(x, y, r);
+        place(x - r, y - r, x + r, y + r);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int r) {
+        calls.fillCircle(x, y, r);
+        place(x - r, y - r, x + r, y + r);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int w, int h) {
+        calls.drawOval(x, y, w, h);
+        place(x, y, x + w, y + h);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int w, int h) {
+        calls.fillOval(x, y, w, h);
+        place(x, y, x + w, y + h);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        calls.drawLine(x1, y1, x2, y2);
+        place(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int w, int h) {
+        calls.drawRectangle(x, y, w, h);
+        place(x, y, x + w, y + h);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int w, int h) {
+        calls.fillRectangle(x, y, w, h);
+        place(x, y, x + w, y + h);
+    }
+
+    @Override
+    public void drawPolygon(Polygon p) {
+        calls.drawPolygon(p);
+        java.awt.Rectangle bounds = p.getBounds();
+        place(bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height);
+    }
+
+    @Override
+    public void fillPolygon(Polygon p) {
+        calls.fillPolygon(p);
+        java.awt.Rectangle bounds = p.getBounds();
+        place(bounds.x, bounds.y, bounds.x + bounds.width, bounds.y + bounds.height);
+    }
+
+    @Override
+    public void drawText(int x, int y, String s, int fontSize) {
+        // The extent of text depends on the font of the target, so it is taken to cover the whole surface.
+        calls.drawText(x, y, s, fontSize);
+        place(0, 0, getWidth(), getHeight());
+    }
+
+    @Override
+    public void setColor(Color color) {
+        currentColor = colorId(color);
+    }
+
+    @Override
+    public int getWidth() {
+        return calls.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return calls.getHeight();
+    }
+}
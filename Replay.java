@@ -0,0 +1,219 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Replay class holds a replay log written by ReplayRecorder: the settings of the game,
+ * the key state of every tick and the snapshots taken along the way.
+ */
+public class Replay {
+
+    private final long seed;
+    private final int bounces;
+    private final boolean aabbTree;
+    private final int balls;
+    private final boolean physicsPool;
+    private final int snapshotInterval;
+    private final byte[] keys;
+    private final int ticks;
+    private final List<GameState> snapshots;
+
+    /**
+     * Constructs a replay from its parts.
+     *
+     * @param seed             the seed of the recorded game
+     * @param bounces          the continuous collision setting of the recorded game
+     * @param aabbTree         whether the recorded game indexes its collidables in an AabbTree
+     * @param balls            the number of balls the recorded game started with
+     * @param physicsPool      whether the recorded game moved its balls on a physics pool
+     * @param snapshotInterval the number of ticks between snapshots
+     * @param keys             the key state of every tick
+     * @param ticks            the number of recorded ticks
+     * @param snapshots        the snapshots, in the order they were taken
+     */
+    private Replay(long seed, int bounces, boolean aabbTree, int balls, boolean physicsPool, int snapshotInterval,
+                   byte[] keys, int ticks, List<GameState> snapshots) {
+        this.seed = seed;
+        this.bounces = bounces;
+        this.aabbTree = aabbTree;
+        this.balls = balls;
+        this.physicsPool = physicsPool;
+        this.snapshotInterval = snapshotInterval;
+        this.keys = keys;
+        this.ticks = ticks;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Reads a replay log. A snapshot cut off at the end of the log, as left by a session that ended abruptly,
+     * is ignored.
+     *
+     * @param path the log file
+     * @return the replay
+     * @throws IOException if the file cannot be read or is not a replay log
+     */
+    public static Replay load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < 2 * Integer.BYTES + Long.BYTES + 5 * Integer.BYTES
+                || buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException(path + ": not a replay log");
+        }
+        int version = buffer.getInt();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException(path + ": unsupported replay log version " + version);
+        }
+        long seed = buffer.getLong();
+        int bounces = buffer.getInt();
+        if (bounces < 0) {
+            throw new IOException(path + ": unsupported collision setting " + bounces);
+        }
+        int broadPhase = buffer.getInt();
+        if (broadPhase != 0 && broadPhase != 1) {
+            throw new IOException(path + ": unsupported broad phase " + broadPhase);
+        }
+        int balls = buffer.getInt();
+        if (balls < 1) {
+            throw new IOException(path + ": unsupported number of balls " + balls);
+        }
+        int pool = buffer.getInt();
+        if (pool != 0 && pool != 1) {
+            throw new IOException(path + ": unsupported physics mode " + pool);
+        }
+        int snapshotInterval = buffer.getInt();
+
+        byte[] keys = new byte[buffer.remaining()];
+        int ticks = 0;
+        List<GameState> snapshots = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            int b = buffer.get() & 0xFF;
+            if (b != ReplayRecorder.SNAPSHOT_TAG) {
+                keys[ticks++] = (byte) b;
+                continue;
+            }
+            if (buffer.remaining() < Integer.BYTES) {
+                break;
+            }
+            int length = buffer.getInt();
+            if (length > buffer.remaining()) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(),
+                    buffer.position(), length));
+            snapshots.add(GameState.readFrom(in));
+            buffer.position(buffer.position() + length);
+        }
+        return new Replay(seed, bounces, broadPhase == 1, balls, pool == 1, snapshotInterval,
+                Arrays.copyOf(keys, ticks), ticks, snapshots);
+    }
+
+    /**
+     * Gets the seed of the recorded game.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the continuous collision setting of the recorded game, see Game.setContinuousCollision.
+     *
+     * @return the most bounces per step, or 0 if the balls cast their trajectory lines
+     */
+    public int getContinuousCollision() {
+        return bounces;
+    }
+
+    /**
+     * Checks whether the recorded game indexes its collidables in an AabbTree, see Game.setAabbTree.
+     *
+     * @return true for the tree, false for the uniform grid
+     */
+    public boolean isAabbTree() {
+        return aabbTree;
+    }
+
+    /**
+     * Gets the number of balls the recorded game started with, see Game.setStartingBalls.
+     *
+     * @return the number of balls
+     */
+    public int getStartingBalls() {
+        return balls;
+    }
+
+    /**
+     * Checks whether the recorded game moved its balls on a physics pool.
+     *
+     * @return true if the game was constructed with a physics pool
+     */
+    public boolean hasPhysicsPool() {
+        return physicsPool;
+    }
+
+    /**
+     * Gets the number of ticks between snapshots.
+     *
+     * @return the snapshot interval
+     */
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     *
+     * @return the length of the replay in ticks
+     */
+    public int ticks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the key state of a tick.
+     *
+     * @param tick the tick
+     * @return the key state, a combination of ReplayKeyboard.LEFT and ReplayKeyboard.RIGHT
+     */
+    public int keys(long tick) {
+        return keys[(int) tick];
+    }
+
+    /**
+     * Gets the number of snapshots in the replay.
+     *
+     * @return the number of snapshots
+     */
+    public int snapshots() {
+        return snapshots.size();
+    }
+
+    /**
+     * Finds the latest snapshot taken at or before a tick.
+     *
+     * @param tick the tick
+     * @return the snapshot, or null if there is none that early
+     */
+    public GameState snapshotAtOrBefore(long tick) {
+        int low = 0;
+        int high = snapshots.size() - 1;
+        GameState found = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            GameState state = snapshots.get(mid);
+            if (state.tick() <= tick) {
+                found = state;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+}
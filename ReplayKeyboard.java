@@ -0,0 +1,73 @@
+import biuoop.KeyboardSensor;
+
+/**
+ * The ReplayKeyboard class is a KeyboardSensor whose left and right keys are set once per tick,
+ * either from a live keyboard while a game is recorded or from the log while it is replayed.
+ * Holding the keys for a whole tick makes the paddle see exactly what was recorded.
+ */
+public class ReplayKeyboard implements KeyboardSensor {
+
+    /**
+     * The bit set in a key state when the left key is pressed.
+     */
+    public static final int LEFT = 1;
+
+    /**
+     * The bit set in a key state when the right key is pressed.
+     */
+    public static final int RIGHT = 2;
+
+    private int keys;
+
+    /**
+     * Reads the keys of another keyboard that control the paddle.
+     *
+     * @param keyboard the keyboard to read
+     * @return the key state, a combination of LEFT and RIGHT
+     */
+    public static int keysOf(KeyboardSensor keyboard) {
+        int state = 0;
+        if (keyboard.isPressed(KeyboardSensor.LEFT_KEY)) {
+            state |= LEFT;
+        }
+        if (keyboard.isPressed(KeyboardSensor.RIGHT_KEY)) {
+            state |= RIGHT;
+        }
+        return state;
+    }
+
+    /**
+     * Sets the keys that are pressed until the next call.
+     *
+     * @param state the key state, a combination of LEFT and RIGHT
+     */
+    public void setKeys(int state) {
+        this.keys = state;
+    }
+
+    /**
+     * Gets the keys that are currently pressed.
+     *
+     * @return the key state, a combination of LEFT and RIGHT
+     */
+    public int getKeys() {
+        return keys;
+    }
+
+    /**
+     * Checks if the given key is pressed in the current key state.
+     *
+     * @param key the key to check
+     * @return true if the key is pressed, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (KeyboardSensor.LEFT_KEY.equals(key)) {
+            return (keys & LEFT) != 0;
+        }
+        if (KeyboardSensor.RIGHT_KEY.equals(key)) {
+            return (keys & RIGHT) != 0;
+        }
+        return false;
+    }
+}
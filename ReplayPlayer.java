@@ -0,0 +1,106 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The ReplayPlayer class re-runs a recorded game headlessly, as fast as possible.
+ * It can seek to any recorded tick: the game is restored from the latest snapshot before the tick
+ * and simulated from there, so a spot late in a long session is reached without replaying it all.
+ */
+public class ReplayPlayer {
+
+    private final Replay replay;
+    private final Level level;
+    private final ReplayKeyboard keyboard = new ReplayKeyboard();
+    private Game game;
+
+    /**
+     * Constructs a player for a replay. The game is created on the first seek or play.
+     *
+     * @param replay the replay to play
+     * @param level  the level the replay was recorded on, or null for the built-in layout
+     */
+    public ReplayPlayer(Replay replay, Level level) {
+        this.replay = replay;
+        this.level = level;
+    }
+
+    /**
+     * Gets the game being replayed, so it can be inspected or drawn.
+     *
+     * @return the game, or null if nothing was played yet
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the tick the replay is at.
+     *
+     * @return the number of ticks played
+     */
+    public long getTick() {
+        return game == null ? 0 : game.getTick();
+    }
+
+    /**
+     * Moves the replay to the given tick, restoring the latest snapshot before it when that is closer
+     * than the current tick, or when the tick is behind the current one.
+     *
+     * @param tick the tick to move to, clamped to the length of the replay
+     */
+    public void seek(long tick) {
+        long target = Math.max(0, Math.min(tick, replay.ticks()));
+        GameState snapshot = replay.snapshotAtOrBefore(target);
+        long current = getTick();
+        if (game == null || current > target || (snapshot != null && snapshot.tick() > current)) {
+            game = newGame();
+            if (snapshot != null) {
+                game.restoreState(snapshot);
+            }
+        }
+        advance(target - game.getTick());
+    }
+
+    /**
+     * Plays the replay from the current tick to its end.
+     *
+     * @return the number of ticks played per second
+     */
+    public double playToEnd() {
+        if (game == null) {
+            game = newGame();
+        }
+        long ticks = replay.ticks() - game.getTick();
+        long start = System.nanoTime();
+        advance(ticks);
+        long elapsed = System.nanoTime() - start;
+        return elapsed == 0 ? 0 : ticks * 1e9 / elapsed;
+    }
+
+    /**
+     * Runs the game forward with the recorded keys.
+     *
+     * @param ticks the number of ticks to run
+     */
+    private void advance(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            keyboard.setKeys(replay.keys(game.getTick()));
+            game.step();
+        }
+    }
+
+    /**
+     * Creates a game set up the way the recorded one was.
+     *
+     * @return the new game, at tick 0
+     */
+    private Game newGame() {
+        Game newGame = replay.hasPhysicsPool() ? new Game(ForkJoinPool.commonPool()) : new Game();
+        newGame.setSeed(replay.getSeed());
+        newGame.setContinuousCollision(replay.getContinuousCollision());
+        newGame.setAabbTree(replay.isAabbTree());
+        newGame.setStartingBalls(replay.getStartingBalls());
+        newGame.setLevel(level);
+        newGame.initializeHeadless(keyboard);
+        return newGame;
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ReplayRecorder class writes a replay log of a game as it is played.
+ * <p>
+ * The log starts with the magic number "ARKR", a version, the seed of the game, the most bounces a ball may
+ * take per tick with continuous collision detection (0 when the balls cast their trajectory lines), the broad
+ * phase (0 for the uniform grid, 1 for the AABB tree), the number of balls, whether the balls are moved on a
+ * physics pool (0 or 1) and the snapshot interval.
+ * After that it is only ever appended to: every tick adds one byte holding the key state of the tick,
+ * and every snapshot interval a GameState is added as the tag byte 0x80, its length and its bytes.
+ * The log is flushed after every snapshot, so a session that ends abruptly loses at most one interval.
+ */
+public class ReplayRecorder implements Closeable {
+
+    /**
+     * The first four bytes of a replay log.
+     */
+    public static final int MAGIC = 0x41524B52;
+
+    /**
+     * The version of the replay log format. It is also bumped when the game a seed produces changes,
+     * so logs of an older game are rejected instead of replaying differently.
+     */
+    public static final int VERSION = 5;
+
+    /**
+     * The byte that starts a snapshot record. Key states are always smaller.
+     */
+    public static final int SNAPSHOT_TAG = 0x80;
+
+    private final DataOutputStream out;
+    private final int snapshotInterval;
+    private final ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream();
+    private final DataOutputStream snapshotOut = new DataOutputStream(snapshotBytes);
+
+    /**
+     * Creates a new replay log, replacing any existing file. The header holds the settings the game has now,
+     * so the recorder must be created once the game is set up and before it is initialized.
+     *
+     * @param path             the file to write the log to
+     * @param game             the game to be recorded
+     * @param snapshotInterval the number of ticks between snapshots
+     * @throws IOException if the file cannot be written
+     */
+    public ReplayRecorder(Path path, Game game, int snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshot interval must be positive: " + snapshotInterval);
+        }
+        if (game.getContinuousCollision() < 0) {
+            throw new IllegalArgumentException("bounces must not be negative: " + game.getContinuousCollision());
+        }
+        this.snapshotInterval = snapshotInterval;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(game.getSeed());
+        out.writeInt(game.getContinuousCollision());
+        out.writeInt(game.isAabbTree() ? 1 : 0);
+        out.writeInt(game.getStartingBalls());
+        out.writeInt(game.hasPhysicsPool() ? 1 : 0);
+        out.writeInt(snapshotInterval);
+    }
+
+    /**
+     * Gets the number of ticks between snapshots.
+     *
+     * @return the snapshot interval
+     */
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Appends the key state of one tick.
+     *
+     * @param keys the key state, a combination of ReplayKeyboard.LEFT and ReplayKeyboard.RIGHT
+     * @throws IOException if the log cannot be written
+     */
+    public void recordTick(int keys) throws IOException {
+        out.writeByte(keys);
+    }
+
+    /**
+     * Appends a snapshot of the game and flushes the log.
+     *
+     * @param state the state of the game before the current tick
+     * @throws IOException if the log cannot be written
+     */
+    public void recordSnapshot(GameState state) throws IOException {
+        snapshotBytes.reset();
+        state.writeTo(snapshotOut);
+        out.writeByte(SNAPSHOT_TAG);
+        out.writeInt(snapshotBytes.size());
+        snapshotBytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the log.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,76 @@
+import biuoop.KeyboardSensor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ScriptedKeyboard class is a KeyboardSensor whose keys are pressed according to a script of ticks
+ * instead of by a person. With an empty script no key is ever pressed.
+ * The owner of the keyboard calls nextTick once per simulation tick.
+ */
+public class ScriptedKeyboard implements KeyboardSensor {
+
+    private final List<Press> presses = new ArrayList<>();
+    private long tick;
+
+    /**
+     * Holds a key down from one tick up to, but not including, another.
+     *
+     * @param key      the key to hold, one of the KeyboardSensor key constants
+     * @param fromTick the first tick at which the key is pressed
+     * @param toTick   the tick at which the key is released
+     * @return this keyboard, so presses can be chained
+     */
+    public ScriptedKeyboard press(String key, long fromTick, long toTick) {
+        presses.add(new Press(key, fromTick, toTick));
+        return this;
+    }
+
+    /**
+     * Advances the script by one tick.
+     */
+    public void nextTick() {
+        tick++;
+    }
+
+    /**
+     * Gets the current tick of the script.
+     *
+     * @return the number of ticks since the script started
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Checks if the script holds the given key down at the current tick.
+     *
+     * @param key the key to check
+     * @return true if the key is pressed, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        for (int i = 0; i < presses.size(); i++) {
+            Press press = presses.get(i);
+            if (tick >= press.fromTick && tick < press.toTick && press.key.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A key held down for a range of ticks.
+     */
+    private static final class Press {
+        private final String key;
+        private final long fromTick;
+        private final long toTick;
+
+        Press(String key, long fromTick, long toTick) {
+            this.key = key;
+            this.fromTick = fromTick;
+            this.toTick = toTick;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SnapshotExchange class hands world snapshots from the simulation thread to the render thread
+ * without locks, using three snapshots. The simulation thread owns the back snapshot and the render
+ * thread owns the front one, and the third one is swapped between them through an atomic reference.
+ * Publishing and taking the latest snapshot are each a single atomic swap, so neither thread ever waits
+ * for the other, and the render thread always gets the most recently published snapshot.
+ */
+public class SnapshotExchange {
+
+    private final AtomicReference<WorldSnapshot> middle;
+    // Only touched by the simulation thread.
+    private WorldSnapshot back;
+    private long published;
+    // Only touched by the render thread.
+    private WorldSnapshot front;
+
+    /**
+     * Constructs an exchange of snapshots of a surface of the given size.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public SnapshotExchange(int width, int height) {
+        this.back = new WorldSnapshot(width, height);
+        this.middle = new AtomicReference<>(new WorldSnapshot(width, height));
+        this.front = new WorldSnapshot(width, height);
+    }
+
+    /**
+     * Gets the snapshot the simulation thread records into. Called from the simulation thread only.
+     *
+     * @return the back snapshot
+     */
+    public WorldSnapshot back() {
+        return back;
+    }
+
+    /**
+     * Publishes the back snapshot to the render thread and takes another one to record into.
+     * Called from the simulation thread only.
+     */
+    public void publish() {
+        back.setSequence(++published);
+        back = middle.getAndSet(back);
+    }
+
+    /**
+     * Gets the most recently published snapshot. If nothing was published since the last call,
+     * the same snapshot is returned again. Called from the render thread only.
+     *
+     * @return the latest snapshot, with sequence number 0 if nothing was published yet
+     */
+    public WorldSnapshot latest() {
+        // Only the simulation thread replaces the middle snapshot, and always with a newer one,
+        // so whatever the swap returns is at least as new as what was checked.
+        if (middle.get().getSequence() > front.getSequence()) {
+            front = middle.getAndSet(front);
+        }
+        return front;
+    }
+}
@@ -19,6 +19,17 @@ public interface Sprite {
      */
     void drawOn(DrawSurface d);
 
+    /**
+     * Draws the sprite on the given DrawSurface, part of the way to its state after the next tick.
+     * Sprites that do not move simply draw their current state.
+     *
+     * @param d     the DrawSurface on which to draw the sprite
+     * @param alpha how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    default void drawOn(DrawSurface d, double alpha) {
+        drawOn(d);
+    }
+
     /**
      * Notifies the sprite that time has passed.
      */
@@ -8,15 +8,27 @@
 import biuoop.DrawSurface;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The SpriteCollection class represents a collection of sprites in a game.
  * It provides methods for adding sprites, updating their state, and drawing them on a DrawSurface.
+ * Removed sprites are collected and dropped together in a single pass at the end of the tick,
+ * so sprites can be removed while the collection is being updated.
+ * <p>
+ * Sprites are drawn in the order they were added, so the balls and the paddle are drawn over the blocks
+ * they overlap. Removal keeps that order on purpose, instead of moving the last sprite into the freed place
+ * the way GameEnvironment does with collidables, whose order does not show on screen.
  */
 public class SpriteCollection {
 
     private List<Sprite> spriteList = new ArrayList<>();
+    private Set<Sprite> pendingRemovals = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Bumped when a sprite is added or removed, so cached drawings of the sprites can be detected as stale.
+    private int version;
 
     /**
      * Adds a sprite to the collection.
@@ -25,15 +37,64 @@ public class SpriteCollection {
      */
     public void addSprite(Sprite s) {
         spriteList.add(s);
+        version++;
+    }
+
+    /**
+     * Removes a sprite from the collection. The sprite is dropped at the end of the current tick,
+     * or before the next draw if no tick is running. Removing a sprite more than once has no effect.
+     *
+     * @param s the sprite to be removed
+     */
+    public void removeSprite(Sprite s) {
+        pendingRemovals.add(s);
+    }
+
+    /**
+     * Drops all the sprites removed since the last call, keeping the order of the remaining sprites.
+     * This takes a single pass over the collection no matter how many sprites were removed, with a constant
+     * time identity lookup per sprite, and nothing at all in a tick where no sprite was removed.
+     */
+    public void applyPendingRemovals() {
+        if (pendingRemovals.isEmpty()) {
+            return;
+        }
+        spriteList.removeIf(pendingRemovals::contains);
+        pendingRemovals.clear();
+        version++;
+    }
+
+    /**
+     * Gets a number that changes whenever a sprite is added or removed. Sprites that do not move look the same
+     * until then, so a drawing of them can be kept as long as the version does not change.
+     *
+     * @return the version of the collection
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a read-only view of the sprites in the collection, in the order they were added.
+     *
+     * @return the sprites in the collection
+     */
+    public List<Sprite> asList() {
+        return Collections.unmodifiableList(spriteList);
     }
 
     /**
      * Calls the timePassed() method on all sprites in the collection, updating their state.
      */
     public void notifyAllTimePassed() {
+        long start = Metrics.isRecording() ? System.nanoTime() : 0;
         for (Sprite sprite : spriteList) {
             sprite.timePassed();
         }
+        applyPendingRemovals();
+        if (Metrics.isRecording()) {
+            Metrics.UPDATE_NANOS.record(System.nanoTime() - start);
+        }
     }
 
     /**
@@ -42,8 +103,31 @@ public class SpriteCollection {
      * @param d the DrawSurface on which sprites will be drawn
      */
     public void drawAllOn(DrawSurface d) {
+        long start = Metrics.isRecording() ? System.nanoTime() : 0;
+        applyPendingRemovals();
         for (Sprite sprite : spriteList) {
             sprite.drawOn(d);
         }
+        if (Metrics.isRecording()) {
+            Metrics.DRAW_NANOS.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Calls the drawOn(d, alpha) method on all sprites in the collection, so moving sprites are drawn
+     * between their last and next simulation tick.
+     *
+     * @param d     the DrawSurface on which sprites will be drawn
+     * @param alpha how far the frame is between the last tick and the next one, from 0 to 1
+     */
+    public void drawAllOn(DrawSurface d, double alpha) {
+        long start = Metrics.isRecording() ? System.nanoTime() : 0;
+        applyPendingRemovals();
+        for (Sprite sprite : spriteList) {
+            sprite.drawOn(d, alpha);
+        }
+        if (Metrics.isRecording()) {
+            Metrics.DRAW_NANOS.record(System.nanoTime() - start);
+        }
     }
 }
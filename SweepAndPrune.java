@@ -0,0 +1,280 @@
+import java.util.Arrays;
+
+/**
+ * The SweepAndPrune class finds and resolves collisions between balls kept in parallel arrays.
+ * <p>
+ * The broad phase keeps the balls sorted by the left end of their x-interval. The order barely changes
+ * from one tick to the next, so it is kept sorted with an insertion sort, which takes close to linear time
+ * on an almost sorted order. Only when many balls are new, such as on the first call, is the order
+ * sorted from scratch. A sweep along the sorted order then only pairs up balls whose x-intervals
+ * overlap, reading their coordinates from copies kept in the sorted order so the sweep walks memory
+ * in sequence. The narrow phase checks that the circles really overlap and bounces approaching balls off each
+ * other elastically, with masses proportional to their area.
+ * <p>
+ * Balls are identified by their index in the arrays. Indices that disappear or appear between calls,
+ * such as after a swap-remove, are handled by the next call.
+ */
+public class SweepAndPrune {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Ball indices sorted by the left end of their x-interval, and those left ends in the same order.
+    private int[] order = new int[INITIAL_CAPACITY];
+    private double[] minX = new double[INITIAL_CAPACITY];
+    private int count;
+    // Set when so many indices are new that the order is better sorted from scratch.
+    private boolean resort;
+    // The centers and radii of the balls, copied in the sorted order for the sweep.
+    private double[] sortedX = new double[INITIAL_CAPACITY];
+    private double[] sortedY = new double[INITIAL_CAPACITY];
+    private double[] sortedRadius = new double[INITIAL_CAPACITY];
+    // Scratch space for sorting from scratch.
+    private int[] orderBuffer = new int[INITIAL_CAPACITY];
+    private double[] minXBuffer = new double[INITIAL_CAPACITY];
+    // Scratch marks for finding the indices that are new since the last call.
+    private boolean[] present = new boolean[INITIAL_CAPACITY];
+    // The overlapping pairs found by the last sweep, as consecutive index pairs.
+    private int[] pairs = new int[2 * INITIAL_CAPACITY];
+    private int pairCount;
+
+    /**
+     * Finds the overlapping balls and changes their velocities so they bounce off each other.
+     * Pairs that are already moving apart are left alone, so overlapping balls are never pulled back together.
+     *
+     * @param n      the number of balls, which are the indices 0 to n - 1 of the arrays
+     * @param x      the x-coordinates of the centers
+     * @param y      the y-coordinates of the centers
+     * @param dx     the x-velocities, updated in place
+     * @param dy     the y-velocities, updated in place
+     * @param radius the radii
+     * @return the number of pairs that bounced
+     */
+    public int collide(int n, double[] x, double[] y, double[] dx, double[] dy, int[] radius) {
+        findPairs(n, x, y, radius);
+        int bounced = 0;
+        for (int p = 0; p < pairCount; p++) {
+            if (bounce(pairs[2 * p], pairs[2 * p + 1], x, y, dx, dy, radius)) {
+                bounced++;
+            }
+        }
+        return bounced;
+    }
+
+    /**
+     * Finds all pairs of overlapping balls. They can then be read with pairCount, first and second.
+     *
+     * @param n      the number of balls, which are the indices 0 to n - 1 of the arrays
+     * @param x      the x-coordinates of the centers
+     * @param y      the y-coordinates of the centers
+     * @param radius the radii
+     */
+    public void findPairs(int n, double[] x, double[] y, int[] radius) {
+        syncIndices(n);
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            minX[k] = x[i] - radius[i];
+        }
+        if (resort) {
+            mergeSort(0, count);
+            resort = false;
+        } else {
+            insertionSort();
+        }
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            sortedX[k] = x[i];
+            sortedY[k] = y[i];
+            sortedRadius[k] = radius[i];
+        }
+
+        pairCount = 0;
+        for (int k = 0; k < count; k++) {
+            double centerX = sortedX[k];
+            double centerY = sortedY[k];
+            double r = sortedRadius[k];
+            double maxX = centerX + r;
+            for (int m = k + 1; m < count && minX[m] <= maxX; m++) {
+                double distX = sortedX[m] - centerX;
+                double distY = sortedY[m] - centerY;
+                double reach = r + sortedRadius[m];
+                if (distX * distX + distY * distY < reach * reach) {
+                    addPair(order[k], order[m]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of overlapping pairs found by the last call to findPairs or collide.
+     *
+     * @return the number of pairs
+     */
+    public int pairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Gets the first ball of an overlapping pair.
+     *
+     * @param p the number of the pair
+     * @return the index of the ball that comes first in the sorted order
+     */
+    public int first(int p) {
+        return pairs[2 * p];
+    }
+
+    /**
+     * Gets the second ball of an overlapping pair.
+     *
+     * @param p the number of the pair
+     * @return the index of the other ball
+     */
+    public int second(int p) {
+        return pairs[2 * p + 1];
+    }
+
+    /**
+     * Makes the sorted order hold exactly the indices 0 to n - 1, dropping indices that are gone and
+     * appending new ones at the end, where the insertion sort moves them into place.
+     *
+     * @param n the number of balls
+     */
+    private void syncIndices(int n) {
+        if (n == count) {
+            return;
+        }
+        if (present.length < n) {
+            present = new boolean[Math.max(n, 2 * present.length)];
+        }
+        Arrays.fill(present, 0, n, false);
+        int kept = 0;
+        for (int k = 0; k < count; k++) {
+            if (order[k] < n) {
+                present[order[k]] = true;
+                order[kept++] = order[k];
+            }
+        }
+        if (order.length < n) {
+            int capacity = Math.max(n, 2 * order.length);
+            order = Arrays.copyOf(order, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            sortedX = new double[capacity];
+            sortedY = new double[capacity];
+            sortedRadius = new double[capacity];
+            orderBuffer = new int[capacity];
+            minXBuffer = new double[capacity];
+        }
+        // Inserting a few new balls is cheap, but inserting many costs quadratic time.
+        resort = n - kept > kept;
+        for (int i = 0; i < n; i++) {
+            if (!present[i]) {
+                order[kept++] = i;
+            }
+        }
+        count = n;
+    }
+
+    /**
+     * Sorts the order by the left ends of the x-intervals. The sort is stable, so the order, and with it
+     * the order in which pairs bounce, is the same every time the same game is run.
+     */
+    private void insertionSort() {
+        for (int k = 1; k < count; k++) {
+            double key = minX[k];
+            int index = order[k];
+            int m = k - 1;
+            while (m >= 0 && minX[m] > key) {
+                minX[m + 1] = minX[m];
+                order[m + 1] = order[m];
+                m--;
+            }
+            minX[m + 1] = key;
+            order[m + 1] = index;
+        }
+    }
+
+    /**
+     * Sorts a range of the order by the left ends of the x-intervals with a stable merge sort.
+     *
+     * @param from the first position of the range
+     * @param to   the position after the last one of the range
+     */
+    private void mergeSort(int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(from, mid);
+        mergeSort(mid, to);
+        if (minX[mid - 1] <= minX[mid]) {
+            return;
+        }
+        System.arraycopy(order, from, orderBuffer, from, to - from);
+        System.arraycopy(minX, from, minXBuffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int k = from; k < to; k++) {
+            if (right >= to || (left < mid && minXBuffer[left] <= minXBuffer[right])) {
+                order[k] = orderBuffer[left];
+                minX[k] = minXBuffer[left++];
+            } else {
+                order[k] = orderBuffer[right];
+                minX[k] = minXBuffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Records an overlapping pair.
+     *
+     * @param i the first ball
+     * @param j the second ball
+     */
+    private void addPair(int i, int j) {
+        if (2 * pairCount + 1 >= pairs.length) {
+            pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+        }
+        pairs[2 * pairCount] = i;
+        pairs[2 * pairCount + 1] = j;
+        pairCount++;
+    }
+
+    /**
+     * Bounces two overlapping balls off each other if they are moving towards each other.
+     * The velocities along the line between the centers are exchanged as in an elastic collision
+     * of two discs whose masses are proportional to their area, and the rest of the velocities is kept.
+     *
+     * @param i      the first ball
+     * @param j      the second ball
+     * @param x      the x-coordinates of the centers
+     * @param y      the y-coordinates of the centers
+     * @param dx     the x-velocities, updated in place
+     * @param dy     the y-velocities, updated in place
+     * @param radius the radii
+     * @return true if the balls bounced, false if they were already moving apart
+     */
+    private static boolean bounce(int i, int j, double[] x, double[] y, double[] dx, double[] dy, int[] radius) {
+        double nx = x[j] - x[i];
+        double ny = y[j] - y[i];
+        double distance = Math.sqrt(nx * nx + ny * ny);
+        if (distance == 0) {
+            return false;
+        }
+        nx /= distance;
+        ny /= distance;
+        double approach = (dx[j] - dx[i]) * nx + (dy[j] - dy[i]) * ny;
+        if (approach >= 0) {
+            return false;
+        }
+        double massI = (double) radius[i] * radius[i];
+        double massJ = (double) radius[j] * radius[j];
+        double total = massI + massJ;
+        double impulseI = 2 * massJ / total * approach;
+        double impulseJ = 2 * massI / total * approach;
+        dx[i] += impulseI * nx;
+        dy[i] += impulseI * ny;
+        dx[j] -= impulseJ * nx;
+        dy[j] -= impulseJ * ny;
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The SweepHit class holds the result of sweeping a moving circle against collidables:
+ * when the circle touches a collidable, where, and the normal of the surface it touches.
+ * A single instance is meant to be reused between sweeps.
+ */
+public class SweepHit {
+
+    private double time;
+    private double normalX;
+    private double normalY;
+    private double contactX;
+    private double contactY;
+    private Collidable collidable;
+
+    /**
+     * Replaces all the values of the hit.
+     *
+     * @param t      the time of impact, as a fraction of the velocity
+     * @param nx     the x-component of the unit surface normal, pointing away from the surface
+     * @param ny     the y-component of the unit surface normal, pointing away from the surface
+     * @param cx     the x-coordinate of the contact point on the surface
+     * @param cy     the y-coordinate of the contact point on the surface
+     * @param object the collidable that was hit
+     */
+    public void set(double t, double nx, double ny, double cx, double cy, Collidable object) {
+        this.time = t;
+        this.normalX = nx;
+        this.normalY = ny;
+        this.contactX = cx;
+        this.contactY = cy;
+        this.collidable = object;
+    }
+
+    /**
+     * Gets the time of impact, as a fraction of the velocity: 0 is the start of the sweep,
+     * 1 is one full step of the velocity.
+     *
+     * @return the time of impact
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Gets the x-component of the unit surface normal at the contact point.
+     *
+     * @return the x-component of the normal
+     */
+    public double normalX() {
+        return normalX;
+    }
+
+    /**
+     * Gets the y-component of the unit surface normal at the contact point.
+     *
+     * @return the y-component of the normal
+     */
+    public double normalY() {
+        return normalY;
+    }
+
+    /**
+     * Gets the x-coordinate of the contact point on the surface.
+     *
+     * @return the x-coordinate of the contact point
+     */
+    public double contactX() {
+        return contactX;
+    }
+
+    /**
+     * Gets the y-coordinate of the contact point on the surface.
+     *
+     * @return the y-coordinate of the contact point
+     */
+    public double contactY() {
+        return contactY;
+    }
+
+    /**
+     * Gets the collidable that was hit.
+     *
+     * @return the collidable
+     */
+    public Collidable collidable() {
+        return collidable;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * The SweptCircle class computes the exact time at which a moving circle first touches a rectangle.
+ * Unlike casting a single line from the center of a ball, the whole circle is swept along its path,
+ * so a fast ball cannot pass through a thin block between two steps.
+ * A rectangle that contains the center of the circle, like the frame of the game, is treated as walls
+ * seen from the inside; any other rectangle is treated as solid.
+ */
+public final class SweptCircle {
+
+    private SweptCircle() {
+    }
+
+    /**
+     * Sweeps a circle against a rectangle.
+     *
+     * @param rect   the rectangle
+     * @param object the collidable the rectangle belongs to, stored in the hit
+     * @param cx     the x-coordinate of the center of the circle at time 0
+     * @param cy     the y-coordinate of the center of the circle at time 0
+     * @param r      the radius of the circle
+     * @param vx     the change in x-coordinate per unit of time
+     * @param vy     the change in y-coordinate per unit of time
+     * @param maxT   the latest time of impact to report
+     * @param out    receives the hit, if there is one
+     * @return true if the circle touches the rectangle at a time between 0 and maxT while moving into it
+     */
+    public static boolean sweep(Rectangle rect, Collidable object, double cx, double cy, double r,
+                                double vx, double vy, double maxT, SweepHit out) {
+        double left = rect.getTopX();
+        double top = rect.getTopY();
+        double right = rect.getBottomX();
+        double bottom = rect.getBottomY();
+        if (cx > left && cx < right && cy > top && cy < bottom) {
+            return sweepInside(left, top, right, bottom, object, cx, cy, r, vx, vy, maxT, out);
+        }
+        return sweepOutside(left, top, right, bottom, object, cx, cy, r, vx, vy, maxT, out);
+    }
+
+    /**
+     * Sweeps a circle whose center is inside the rectangle against its walls.
+     * A circle already touching a wall and moving towards it hits at time 0.
+     */
+    private static boolean sweepInside(double left, double top, double right, double bottom, Collidable object,
+                                       double cx, double cy, double r, double vx, double vy, double maxT,
+                                       SweepHit out) {
+        double tx = Double.POSITIVE_INFINITY;
+        double wallX = 0;
+        if (vx > 0) {
+            wallX = right;
+            tx = Math.max(0, (right - r - cx) / vx);
+        } else if (vx < 0) {
+            wallX = left;
+            tx = Math.max(0, (left + r - cx) / vx);
+        }
+        double ty = Double.POSITIVE_INFINITY;
+        double wallY = 0;
+        if (vy > 0) {
+            wallY = bottom;
+            ty = Math.max(0, (bottom - r - cy) / vy);
+        } else if (vy < 0) {
+            wallY = top;
+            ty = Math.max(0, (top + r - cy) / vy);
+        }
+        double t = Math.min(tx, ty);
+        if (t > maxT) {
+            return false;
+        }
+        if (tx <= ty) {
+            out.set(t, -Math.signum(vx), 0, wallX, cy + vy * t, object);
+        } else {
+            out.set(t, 0, -Math.signum(vy), cx + vx * t, wallY, object);
+        }
+        return true;
+    }
+
+    /**
+     * Sweeps a circle whose center is outside the rectangle against the solid rectangle.
+     * The rectangle grown by the radius is hit with a slab test, and hits in the rounded corners of the
+     * grown rectangle are solved against the corner circles.
+     */
+    private static boolean sweepOutside(double left, double top, double right, double bottom, Collidable object,
+                                        double cx, double cy, double r, double vx, double vy, double maxT,
+                                        SweepHit out) {
+        // Already touching: hit at once if moving towards the closest point of the rectangle.
+        double qx = clamp(cx, left, right);
+        double qy = clamp(cy, top, bottom);
+        double dx = cx - qx;
+        double dy = cy - qy;
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared < r * r) {
+            if (dx * vx + dy * vy >= 0) {
+                return false;
+            }
+            double distance = Math.sqrt(distanceSquared);
+            out.set(0, dx / distance, dy / distance, qx, qy, object);
+            return true;
+        }
+
+        double enterX;
+        double exitX;
+        if (vx != 0) {
+            double t1 = (left - r - cx) / vx;
+            double t2 = (right + r - cx) / vx;
+            enterX = Math.min(t1, t2);
+            exitX = Math.max(t1, t2);
+        } else if (cx >= left - r && cx <= right + r) {
+            enterX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else {
+            return false;
+        }
+        double enterY;
+        double exitY;
+        if (vy != 0) {
+            double t1 = (top - r - cy) / vy;
+            double t2 = (bottom + r - cy) / vy;
+            enterY = Math.min(t1, t2);
+            exitY = Math.max(t1, t2);
+        } else if (cy >= top - r && cy <= bottom + r) {
+            enterY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else {
+            return false;
+        }
+        double enter = Math.max(enterX, enterY);
+        double exit = Math.min(exitX, exitY);
+        if (enter > exit || enter > maxT || exit < 0) {
+            return false;
+        }
+
+        // A center already inside the grown rectangle without touching can only be in one of its corners.
+        double px = cx + vx * Math.max(enter, 0);
+        double py = cy + vy * Math.max(enter, 0);
+        boolean besideX = px >= left && px <= right;
+        boolean besideY = py >= top && py <= bottom;
+        if (enter >= 0 && (besideY || besideX)) {
+            // Face hit, the contact point lies exactly on the face.
+            if (enterX >= enterY) {
+                double face = vx > 0 ? left : right;
+                out.set(enter, -Math.signum(vx), 0, face, py, object);
+            } else {
+                double face = vy > 0 ? top : bottom;
+                out.set(enter, 0, -Math.signum(vy), px, face, object);
+            }
+            return true;
+        }
+
+        // Corner region: solve |c + v t - corner| = r for the earliest t.
+        double cornerX = px < left ? left : right;
+        double cornerY = py < top ? top : bottom;
+        double ox = cx - cornerX;
+        double oy = cy - cornerY;
+        double a = vx * vx + vy * vy;
+        double b = 2 * (ox * vx + oy * vy);
+        double c = ox * ox + oy * oy - r * r;
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return false;
+        }
+        double t = (-b - Math.sqrt(discriminant)) / (2 * a);
+        if (t < 0 || t > maxT) {
+            return false;
+        }
+        double nx = (ox + vx * t) / r;
+        double ny = (oy + vy * t) / r;
+        out.set(t, nx, ny, cornerX, cornerY, object);
+        return true;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The UniformGrid class is a broad phase that buckets collidables into square cells of a fixed size.
+ * A collidable is stored in every cell its collision rectangle overlaps, and a query only visits the
+ * cells covered by the query box. It works best when collidables are about the size of a cell, like blocks.
+ * Cells are found in an open-addressing table keyed by their packed coordinates, so a query does not
+ * allocate. A cell that becomes empty keeps its slot, ready for the next collidable moving into it.
+ */
+public class UniformGrid implements BroadPhase {
+
+    private static final int INITIAL_SLOTS = 64;
+
+    private final double cellSize;
+    private long[] cellKeys = new long[INITIAL_SLOTS];
+    private List<Entry>[] cells = newCells(INITIAL_SLOTS);
+    private int cellCount;
+    private final Map<Collidable, Entry> entries = new IdentityHashMap<>();
+    private int queryStamp;
+
+    /**
+     * Constructs an empty grid with the specified cell size.
+     *
+     * @param cellSize the width and height of a single cell
+     */
+    public UniformGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a collidable to every cell its collision rectangle overlaps.
+     *
+     * @param c the collidable to be added
+     */
+    public void insert(Collidable c) {
+        if (entries.containsKey(c)) {
+            update(c);
+            return;
+        }
+        Entry entry = new Entry(c);
+        setRange(entry, c.getCollisionRectangle());
+        entries.put(c, entry);
+        addToCells(entry);
+    }
+
+    /**
+     * Removes a collidable from all the cells it is stored in.
+     *
+     * @param c the collidable to be removed
+     */
+    public void remove(Collidable c) {
+        Entry entry = entries.remove(c);
+        if (entry != null) {
+            removeFromCells(entry);
+        }
+    }
+
+    /**
+     * Moves a collidable to the cells covered by its current collision rectangle.
+     * If it still covers the same cells nothing is changed.
+     *
+     * @param c the collidable that moved
+     */
+    public void update(Collidable c) {
+        Entry entry = entries.get(c);
+        if (entry == null) {
+            insert(c);
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        if (cellOf(rect.getTopX()) == entry.minCx && cellOf(rect.getTopY()) == entry.minCy
+                && cellOf(rect.getBottomX()) == entry.maxCx && cellOf(rect.getBottomY()) == entry.maxCy) {
+            return;
+        }
+        removeFromCells(entry);
+        setRange(entry, rect);
+        addToCells(entry);
+    }
+
+    /**
+     * Collects the collidables stored in the cells covered by the given box.
+     *
+     * @param minX the left edge of the box
+     * @param minY the top edge of the box
+     * @param maxX the right edge of the box
+     * @param maxY the bottom edge of the box
+     * @param out  the list to which the candidates are added
+     */
+    public void query(double minX, double minY, double maxX, double maxY, List<Collidable> out) {
+        int stamp = ++queryStamp;
+        int maxCx = cellOf(maxX);
+        int maxCy = cellOf(maxY);
+        for (int cx = cellOf(minX); cx <= maxCx; cx++) {
+            for (int cy = cellOf(minY); cy <= maxCy; cy++) {
+                List<Entry> cell = cellAt(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry entry = cell.get(i);
+                    // A collidable spanning several cells is only reported once per query.
+                    if (entry.stamp != stamp) {
+                        entry.stamp = stamp;
+                        out.add(entry.collidable);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of collidables in the grid.
+     *
+     * @return the number of collidables in the grid
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Entry>[] newCells(int slots) {
+        return (List<Entry>[]) new List<?>[slots];
+    }
+
+    /**
+     * Finds the slot of a cell key in the table: the slot holding the key, or the empty slot where it belongs.
+     *
+     * @param key the key of the cell
+     * @return the slot
+     */
+    private int slotOf(long key) {
+        int mask = cells.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash >>> 32) & mask;
+        while (cells[slot] != null && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the entries of a cell.
+     *
+     * @param key the key of the cell
+     * @return the entries of the cell, or null if nothing was ever stored in it
+     */
+    private List<Entry> cellAt(long key) {
+        return cells[slotOf(key)];
+    }
+
+    /**
+     * Gets the entries of a cell, creating the cell if nothing was stored in it before.
+     * The table is kept at most half full, so looking up a cell stays short.
+     *
+     * @param key the key of the cell
+     * @return the entries of the cell
+     */
+    private List<Entry> cellOrCreate(long key) {
+        int slot = slotOf(key);
+        if (cells[slot] != null) {
+            return cells[slot];
+        }
+        if (2 * (cellCount + 1) > cells.length) {
+            long[] oldKeys = cellKeys;
+            List<Entry>[] oldCells = cells;
+            cellKeys = new long[oldCells.length * 2];
+            cells = newCells(oldCells.length * 2);
+            for (int i = 0; i < oldCells.length; i++) {
+                if (oldCells[i] != null) {
+                    int moved = slotOf(oldKeys[i]);
+                    cellKeys[moved] = oldKeys[i];
+                    cells[moved] = oldCells[i];
+                }
+            }
+            slot = slotOf(key);
+        }
+        cellKeys[slot] = key;
+        cells[slot] = new ArrayList<>();
+        cellCount++;
+        return cells[slot];
+    }
+
+    private void setRange(Entry entry, Rectangle rect) {
+        entry.minCx = cellOf(rect.getTopX());
+        entry.minCy = cellOf(rect.getTopY());
+        entry.maxCx = cellOf(rect.getBottomX());
+        entry.maxCy = cellOf(rect.getBottomY());
+    }
+
+    private void addToCells(Entry entry) {
+        for (int cx = entry.minCx; cx <= entry.maxCx; cx++) {
+            for (int cy = entry.minCy; cy <= entry.maxCy; cy++) {
+                cellOrCreate(key(cx, cy)).add(entry);
+            }
+        }
+    }
+
+    private void removeFromCells(Entry entry) {
+        for (int cx = entry.minCx; cx <= entry.maxCx; cx++) {
+            for (int cy = entry.minCy; cy <= entry.maxCy; cy++) {
+                List<Entry> cell = cellAt(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                // Order inside a cell does not matter, so swap the last entry into the hole.
+                int index = cell.indexOf(entry);
+                if (index >= 0) {
+                    int last = cell.size() - 1;
+                    cell.set(index, cell.get(last));
+                    cell.remove(last);
+                }
+            }
+        }
+    }
+
+    /**
+     * A collidable together with the range of cells it is stored in.
+     */
+    private static final class Entry {
+        private final Collidable collidable;
+        private int minCx;
+        private int minCy;
+        private int maxCx;
+        private int maxCy;
+        private int stamp;
+
+        Entry(Collidable collidable) {
+            this.collidable = collidable;
+        }
+    }
+}
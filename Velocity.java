@@ -24,6 +24,17 @@ public class Velocity {
         this.dy = dy;
     }
 
+    /**
+     * Changes the velocity in place.
+     *
+     * @param newDx the new change in x-coordinate per time unit
+     * @param newDy the new change in y-coordinate per time unit
+     */
+    public void set(double newDx, double newDy) {
+        this.dx = newDx;
+        this.dy = newDy;
+    }
+
     /**
      * Applies the velocity to a given point and returns a new point.
      *
@@ -34,6 +45,15 @@ public class Velocity {
         return new Point(p.getX() + dx, p.getY() + dy);
     }
 
+    /**
+     * Applies the velocity to a given point in place, without creating a new point.
+     *
+     * @param p the point to be moved by the velocity
+     */
+    public void applyTo(Point p) {
+        p.setLocation(p.getX() + dx, p.getY() + dy);
+    }
+
     /**
      * Gets the change in x-coordinate per time unit.
      *
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The WorldBatch class runs many independent games at once, for tuning paddle controllers and levels.
+ * Every world is a headless Game with its own seed, GameEnvironment and SpriteCollection, its paddle
+ * steered by its own PaddleController. A world runs until its board is cleared, a ball gets past its
+ * paddle or it reaches the tick limit.
+ * <p>
+ * The worlds are spread over a fork/join pool. Each world runs to its end on one worker, so it stays in
+ * that worker's cache, and idle workers steal the worlds that are left. Worlds share nothing but the
+ * level they are built from, which is only read. Metrics are recorded from one thread at a time, so
+ * recording is suspended while a batch runs.
+ */
+public class WorldBatch {
+
+    private final Level level;
+    private final long maxTicks;
+    private final List<Long> seeds = new ArrayList<>();
+    private final List<PaddleController> controllers = new ArrayList<>();
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param level    the level every world plays, or null for the built-in layout
+     * @param maxTicks the most ticks a world runs
+     */
+    public WorldBatch(Level level, long maxTicks) {
+        if (maxTicks < 0) {
+            throw new IllegalArgumentException("the tick limit must not be negative: " + maxTicks);
+        }
+        this.level = level;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Adds a world to the batch.
+     *
+     * @param seed       the seed of the world
+     * @param controller the controller steering the paddle of the world, used by no other world,
+     *                   or null to leave the paddle where it starts
+     * @return the index of the world in the results
+     */
+    public int addWorld(long seed, PaddleController controller) {
+        seeds.add(seed);
+        controllers.add(controller);
+        return seeds.size() - 1;
+    }
+
+    /**
+     * Gets the number of worlds in the batch.
+     *
+     * @return the number of worlds
+     */
+    public int size() {
+        return seeds.size();
+    }
+
+    /**
+     * Runs every world of the batch from its start to its end on the given pool, and waits for all of them.
+     * The batch can be run again, which starts every world over.
+     *
+     * @param pool the pool to run the worlds on
+     * @return the outcome of every world and the throughput of the run
+     */
+    public BatchResult run(ForkJoinPool pool) {
+        BatchResult result = new BatchResult(size());
+        long start = System.nanoTime();
+        Metrics.suspend();
+        try {
+            pool.invoke(new Worlds(result, 0, size()));
+        } finally {
+            Metrics.resume();
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Runs one world from its start to its end and records its outcome.
+     *
+     * @param world  the index of the world
+     * @param result the result to record the outcome in
+     */
+    private void runWorld(int world, BatchResult result) {
+        Game game = new Game();
+        game.setSeed(seeds.get(world));
+        game.setLevel(level);
+        game.setController(controllers.get(world));
+        game.initializeHeadless(new ReplayKeyboard());
+        while (game.getTick() < maxTicks && !game.isCleared() && !game.isBallLost()) {
+            game.step();
+        }
+        result.record(world, game);
+    }
+
+    /**
+     * Runs a range of worlds, splitting it in half until a single world is left.
+     */
+    private final class Worlds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BatchResult result;
+        private final int from;
+        private final int to;
+
+        Worlds(BatchResult result, int from, int to) {
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    runWorld(from, result);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Worlds(result, from, middle), new Worlds(result, middle, to));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import biuoop.DrawSurface;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The WorldSnapshot class holds what the sprites of a game looked like after one tick, so it can be drawn
+ * by a render thread while the simulation thread goes on. The moving sprites are recorded twice, as they are
+ * after the tick and as they will be one tick later, and a frame is drawn in between the two.
+ * The other sprites, such as blocks, are drawn under them from a recording that is only redone when a sprite
+ * was added or removed since, so a snapshot does not cost the simulation thread a pass over every block.
+ * A snapshot is only ever written by one thread at a time, and handed over by a SnapshotExchange.
+ */
+public class WorldSnapshot {
+
+    private final DisplayList staticSprites;
+    private final DisplayList current;
+    private final DisplayList next;
+    // The moving sprites, in drawing order, found while the static sprites were last recorded.
+    private final List<Sprite> movingSprites = new ArrayList<>();
+    // The version of the sprite collection the static sprites were recorded at.
+    private int staticVersion;
+    private boolean staticRecorded;
+    private long tick;
+    private long tickNanos;
+    // Written before the snapshot is published and read before it is taken, so it must not tear.
+    private volatile long sequence;
+
+    /**
+     * Constructs an empty snapshot of a surface of the given size.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public WorldSnapshot(int width, int height) {
+        this.staticSprites = new DisplayList(width, height);
+        this.current = new DisplayList(width, height);
+        this.next = new DisplayList(width, height);
+    }
+
+    /**
+     * Records the sprites, replacing whatever the snapshot held before. The sprites that do not move are only
+     * recorded again when the collection changed since the snapshot last recorded them.
+     *
+     * @param sprites    the sprites to record
+     * @param tickNumber the number of ticks run before the recording
+     * @param nanos      the System.nanoTime at which the last tick was due
+     */
+    public void record(SpriteCollection sprites, long tickNumber, long nanos) {
+        sprites.applyPendingRemovals();
+        if (!staticRecorded || staticVersion != sprites.getVersion()) {
+            staticSprites.clear();
+            movingSprites.clear();
+            for (Sprite sprite : sprites.asList()) {
+                if (sprite instanceof MovingSprite) {
+                    movingSprites.add(sprite);
+                } else {
+                    sprite.drawOn(staticSprites);
+                }
+            }
+            staticVersion = sprites.getVersion();
+            staticRecorded = true;
+        }
+        current.clear();
+        next.clear();
+        for (int i = 0; i < movingSprites.size(); i++) {
+            movingSprites.get(i).drawOn(current, 0);
+            movingSprites.get(i).drawOn(next, 1);
+        }
+        this.tick = tickNumber;
+        this.tickNanos = nanos;
+    }
+
+    /**
+     * Draws the recorded sprites part of the way to their state after the next tick.
+     *
+     * @param d     the surface to draw on
+     * @param alpha how far the frame is between the recorded tick and the next one, from 0 to 1
+     */
+    public void drawOn(DrawSurface d, double alpha) {
+        staticSprites.drawOn(d);
+        current.drawOn(d, next, alpha);
+    }
+
+    /**
+     * Gets the number of ticks run before the recording.
+     *
+     * @return the tick of the snapshot
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the System.nanoTime at which the recorded tick was due.
+     *
+     * @return the time of the recorded tick
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Gets the number given to the snapshot when it was published. Later snapshots have higher numbers.
+     *
+     * @return the sequence number, or 0 if the snapshot was never published
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the number given to the snapshot when it is published.
+     *
+     * @param sequence the sequence number
+     */
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,204 @@
+import bench.Scenario;
+import bench.ScenarioFactory;
+
+import java.awt.Color;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Creates the scenarios measured by the benchmarks. It lives in the default package next to the game
+ * classes, which the benchmark classes themselves cannot reference.
+ */
+public class BenchmarkScenarios implements ScenarioFactory {
+
+    @Override
+    public Scenario create(String name, int collidables, int balls, String broadPhase) {
+        switch (name) {
+            case "intersectionWith":
+            case "intersectionWithVertical":
+            case "intersectionWithInto":
+            case "closestIntersectionToStartOfLine":
+            case "closestIntersectionToStartOfLineInto":
+                return geometry(name);
+            case "getClosestCollision":
+            case "getClosestCollisionArena":
+            case "findClosestCollision":
+            case "castRay":
+            case "castRayOrdered":
+            case "moveOneStep":
+                return collision(name, collidables, balls, broadPhase);
+            case "notifyAllTimePassed":
+            case "notifyAllTimePassedContinuous":
+                return tick(name, collidables, balls);
+            case "drawAllOn":
+            case "drawAllOnBatched":
+            case "drawAllOnOffscreen":
+            case "dirtyRect":
+                return render(name, collidables, balls);
+            case "step":
+            case "stepParallel":
+                return game(name, balls);
+            default:
+                throw new IllegalArgumentException("unknown scenario: " + name);
+        }
+    }
+
+    private static Scenario geometry(String name) {
+        Line diagonal = new Line(new Point(10, 10), new Point(13.5, 14.25));
+        Line vertical = new Line(new Point(12, 0), new Point(12, 40));
+        Line horizontal = new Line(new Point(0, 12), new Point(40, 12));
+        Rectangle rect = new Rectangle(new Point(11, 11), new Point(61, 31), Color.cyan);
+        Ball ball = new Ball(10, 10, 5, Color.pink, new GameEnvironment());
+        ball.setVelocity(3.5, 4.25);
+        Point out = new Point(0, 0);
+        switch (name) {
+            case "intersectionWith":
+                return () -> diagonal.intersectionWith(horizontal);
+            case "intersectionWithVertical":
+                return () -> diagonal.intersectionWith(vertical);
+            case "intersectionWithInto":
+                return () -> {
+                    diagonal.intersectionWith(horizontal, out);
+                    return out;
+                };
+            case "closestIntersectionToStartOfLine":
+                return () -> diagonal.closestIntersectionToStartOfLine(rect, ball);
+            default:
+                return () -> diagonal.closestIntersectionToStartOfLine(rect, ball, out);
+        }
+    }
+
+    private static GameEnvironment environment(String broadPhase) {
+        switch (broadPhase) {
+            case "grid":
+                return new GameEnvironment();
+            case "tree":
+                return new GameEnvironment(new AabbTree());
+            default:
+                throw new IllegalArgumentException("unknown broad phase: " + broadPhase);
+        }
+    }
+
+    private static Scenario collision(String name, int collidables, int balls, String broadPhase) {
+        GameEnvironment environment = environment(broadPhase);
+        environment.setOrderedQueries(name.endsWith("Ordered"));
+        Boards.addBlocks(collidables, environment, null);
+        Ball[] ballArray = new Ball[balls];
+        Line[] trajectories = new Line[balls];
+        // Rays that carry on in the direction of the ball across the whole board, like a predicted path.
+        Line[] rays = new Line[balls];
+        double boardWidth = Boards.columns(collidables - 1) * Boards.CELL_WIDTH;
+        for (int i = 0; i < balls; i++) {
+            ballArray[i] = Boards.ball(i * 7919, collidables, environment);
+            trajectories[i] = ballArray[i].calculateTrajectory();
+            Point start = trajectories[i].start;
+            Velocity velocity = ballArray[i].getVelocity();
+            double scale = boardWidth / Math.hypot(velocity.dx, velocity.dy);
+            rays[i] = new Line(start, new Point(start.getX() + velocity.dx * scale, start.getY() + velocity.dy * scale));
+        }
+        CollisionInfo info = new CollisionInfo();
+        int[] next = new int[1];
+        switch (name) {
+            case "getClosestCollision":
+                return () -> {
+                    int i = next[0]++ % balls;
+                    return environment.getClosestCollision(trajectories[i], ballArray[i]);
+                };
+            case "findClosestCollision":
+                return () -> {
+                    int i = next[0]++ % balls;
+                    return environment.findClosestCollision(trajectories[i], ballArray[i], info);
+                };
+            case "getClosestCollisionArena":
+                // Every query is a tick of its own, so the arena is reset before the next one.
+                FrameArena arena = new FrameArena();
+                environment.setFrameArena(arena);
+                return () -> {
+                    arena.reset();
+                    int i = next[0]++ % balls;
+                    return environment.getClosestCollision(trajectories[i], ballArray[i]);
+                };
+            case "castRay":
+            case "castRayOrdered":
+                return () -> {
+                    int i = next[0]++ % balls;
+                    return environment.findClosestCollision(rays[i], ballArray[i], info);
+                };
+            default:
+                return () -> {
+                    Ball ball = ballArray[next[0]++ % balls];
+                    ball.moveOneStep();
+                    return ball;
+                };
+        }
+    }
+
+    private static Scenario tick(String name, int collidables, int balls) {
+        GameEnvironment environment = new GameEnvironment();
+        SpriteCollection sprites = new SpriteCollection();
+        Boards.addBlocks(collidables, environment, sprites);
+        for (int i = 0; i < balls; i++) {
+            Ball ball = Boards.ball(i * 7919, collidables, environment);
+            if (name.equals("notifyAllTimePassedContinuous")) {
+                ball.setContinuousCollision(4);
+            }
+            sprites.addSprite(ball);
+        }
+        return () -> {
+            sprites.notifyAllTimePassed();
+            return sprites;
+        };
+    }
+
+    private static Scenario game(String name, int balls) {
+        // The game's own layout; the number of collidables does not apply.
+        Game game = name.equals("stepParallel") ? new Game(ForkJoinPool.commonPool()) : new Game();
+        game.setStartingBalls(balls);
+        game.initializeHeadless(new ScriptedKeyboard());
+        return () -> {
+            game.step();
+            return game;
+        };
+    }
+
+    private static Scenario render(String name, int collidables, int balls) {
+        GameEnvironment environment = new GameEnvironment();
+        SpriteCollection sprites = new SpriteCollection();
+        Boards.addBlocks(collidables, environment, sprites);
+        for (int i = 0; i < balls; i++) {
+            sprites.addSprite(Boards.ball(i * 7919, collidables, environment));
+        }
+        int columns = Boards.columns(collidables - 1);
+        int width = columns * Boards.CELL_WIDTH;
+        int height = (collidables / columns + 1) * Boards.CELL_HEIGHT;
+        if (name.equals("drawAllOnOffscreen")) {
+            OffscreenDrawSurface offscreen = new OffscreenDrawSurface(width, height, true);
+            return () -> {
+                do {
+                    offscreen.beginFrame(Color.blue);
+                    sprites.drawAllOn(offscreen);
+                } while (!offscreen.endFrame());
+                return offscreen.getImage();
+            };
+        }
+        if (name.equals("dirtyRect")) {
+            DirtyRectRenderer renderer = new DirtyRectRenderer(width, height, Color.blue, true);
+            renderer.addAll(sprites);
+            // The first frame rasterizes the background, every later one only restores what the balls cover.
+            renderer.render(0);
+            return () -> renderer.render(0);
+        }
+        ImageDrawSurface surface = new ImageDrawSurface(width, height);
+        if (name.equals("drawAllOn")) {
+            return () -> {
+                sprites.drawAllOn(surface);
+                return surface;
+            };
+        }
+        RenderBatch batch = new RenderBatch(surface.getWidth(), surface.getHeight());
+        return () -> {
+            sprites.drawAllOn(batch);
+            batch.flush(surface);
+            return surface;
+        };
+    }
+}
@@ -0,0 +1,73 @@
+import java.awt.Color;
+
+/**
+ * Builds game boards of a given size for the benchmarks.
+ * Blocks are laid out in a square grid with gaps between them, inside a frame block around the board,
+ * and balls are placed in the gaps so every trajectory runs close to several blocks.
+ */
+final class Boards {
+
+    static final int CELL_WIDTH = 50;
+    static final int CELL_HEIGHT = 20;
+    static final int BLOCK_WIDTH = 40;
+    static final int BLOCK_HEIGHT = 12;
+    static final int BALL_RADIUS = 3;
+
+    private Boards() {
+    }
+
+    /**
+     * Gets the number of grid columns used for a board with the given number of blocks.
+     *
+     * @param blocks the number of blocks on the board
+     * @return the number of columns
+     */
+    static int columns(int blocks) {
+        return Math.max(1, (int) Math.ceil(Math.sqrt(blocks)));
+    }
+
+    /**
+     * Creates the blocks of a board and adds them to a game environment and, if given, a sprite collection.
+     * The frame around the board counts as one of the collidables.
+     *
+     * @param collidables the total number of collidables, including the frame
+     * @param environment the environment receiving the blocks
+     * @param sprites     the sprite collection receiving the blocks, or null
+     */
+    static void addBlocks(int collidables, GameEnvironment environment, SpriteCollection sprites) {
+        int blocks = collidables - 1;
+        int columns = columns(blocks);
+        int rows = Math.max(1, (blocks + columns - 1) / columns);
+        for (int i = 0; i < blocks; i++) {
+            int x = (i % columns) * CELL_WIDTH;
+            int y = (i / columns) * CELL_HEIGHT;
+            Rectangle rect = new Rectangle(new Point(x, y), new Point(x + BLOCK_WIDTH, y + BLOCK_HEIGHT), Color.cyan);
+            Block block = new Block(rect);
+            environment.addCollidable(block);
+            if (sprites != null) {
+                sprites.addSprite(block);
+            }
+        }
+        Block frame = new Block(new Rectangle(new Point(-CELL_WIDTH, -CELL_HEIGHT),
+                new Point((columns + 1) * CELL_WIDTH, (rows + 1) * CELL_HEIGHT), Color.black));
+        environment.addCollidable(frame);
+    }
+
+    /**
+     * Creates a ball in the gap below the block with the given number, moving diagonally.
+     *
+     * @param index       the number of the block the ball starts next to
+     * @param collidables the total number of collidables on the board
+     * @param environment the environment the ball collides with
+     * @return the new ball
+     */
+    static Ball ball(int index, int collidables, GameEnvironment environment) {
+        int columns = columns(collidables - 1);
+        int cell = index % Math.max(1, collidables - 1);
+        double x = (cell % columns) * CELL_WIDTH + BLOCK_WIDTH + (CELL_WIDTH - BLOCK_WIDTH) / 2.0;
+        double y = (cell / columns) * CELL_HEIGHT + BLOCK_HEIGHT + (CELL_HEIGHT - BLOCK_HEIGHT) / 2.0;
+        Ball ball = new Ball(x, y, BALL_RADIUS, Color.pink, environment);
+        ball.setVelocity(index % 2 == 0 ? 1.5 : -1.5, index % 3 == 0 ? 2.5 : -2.5);
+        return ball;
+    }
+}
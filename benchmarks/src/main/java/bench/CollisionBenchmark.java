@@ -0,0 +1,58 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks GameEnvironment collision queries and Ball.moveOneStep on boards of different sizes,
+ * with the collidables indexed by a UniformGrid or an AabbTree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    @Param({"getClosestCollision", "getClosestCollisionArena", "findClosestCollision", "castRay", "castRayOrdered",
+            "moveOneStep"})
+    private String operation;
+
+    @Param({"10", "100", "10000"})
+    private int collidables;
+
+    @Param({"grid", "tree"})
+    private String broadPhase;
+
+    private Scenario scenario;
+
+    /**
+     * Builds the board and the balls whose trajectories are queried.
+     */
+    @Setup
+    public void setUp() {
+        scenario = ScenarioFactory.load().create(operation, collidables, 64, broadPhase);
+    }
+
+    /**
+     * Runs the operation for the next ball.
+     *
+     * @return the result of the operation
+     */
+    @Benchmark
+    public Object collision() {
+        return scenario.run();
+    }
+}
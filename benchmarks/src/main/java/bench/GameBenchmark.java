@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks Game.step on the built-in level started with many balls, moved one by one and colliding through
+ * a BallCollider, or moved by a BallSystem on a physics pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"100", "10000"})
+    private int balls;
+
+    @Param({"serial", "pool"})
+    private String physics;
+
+    private Scenario scenario;
+
+    /**
+     * Starts the game. It is restarted for every iteration so every iteration plays the same part of the game.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String name = physics.equals("pool") ? "stepParallel" : "step";
+        scenario = ScenarioFactory.load().create(name, 0, balls);
+    }
+
+    /**
+     * Runs one tick of the game.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Object step() {
+        return scenario.run();
+    }
+}
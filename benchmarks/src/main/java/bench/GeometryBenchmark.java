@@ -0,0 +1,52 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the line intersection code that every collision query is built on,
+ * Line.intersectionWith and Line.closestIntersectionToStartOfLine, in their allocating and in-place forms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    @Param({"intersectionWith", "intersectionWithVertical", "intersectionWithInto",
+            "closestIntersectionToStartOfLine", "closestIntersectionToStartOfLineInto"})
+    private String operation;
+
+    private Scenario scenario;
+
+    /**
+     * Prepares the lines and rectangle of the operation.
+     */
+    @Setup
+    public void setUp() {
+        scenario = ScenarioFactory.load().create(operation, 1, 1);
+    }
+
+    /**
+     * Runs the operation.
+     *
+     * @return the result of the operation
+     */
+    @Benchmark
+    public Object geometry() {
+        return scenario.run();
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks drawing every sprite of a generated board into an offscreen BufferedImage, either straight
+ * through SpriteCollection.drawAllOn or collected in a RenderBatch and flushed grouped by color, or as a
+ * whole frame on an OffscreenDrawSurface, background fill and (with a display) the copy out of the
+ * volatile image included, or as a whole frame from a DirtyRectRenderer, which only redraws the balls over
+ * its cached background of blocks. The image grows with the board, so the sizes also compare frame sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"drawAllOn", "drawAllOnBatched", "drawAllOnOffscreen", "dirtyRect"})
+    private String operation;
+
+    @Param({"100", "1000", "10000"})
+    private int collidables;
+
+    @Param({"2", "100"})
+    private int balls;
+
+    private Scenario scenario;
+
+    /**
+     * Builds the board and the image it is drawn into.
+     */
+    @Setup
+    public void setUp() {
+        scenario = ScenarioFactory.load().create(operation, collidables, balls);
+    }
+
+    /**
+     * Draws the board once.
+     *
+     * @return the surface drawn on
+     */
+    @Benchmark
+    public Object render() {
+        return scenario.run();
+    }
+}
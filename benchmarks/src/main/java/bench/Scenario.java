@@ -0,0 +1,15 @@
+package bench;
+
+/**
+ * One measured operation of the game, prepared in advance so that run does nothing but the operation.
+ */
+@FunctionalInterface
+public interface Scenario {
+
+    /**
+     * Runs the operation once.
+     *
+     * @return a result of the operation, returned to the benchmark so it cannot be optimized away
+     */
+    Object run();
+}
@@ -0,0 +1,51 @@
+package bench;
+
+/**
+ * Creates the scenarios measured by the benchmarks.
+ * The game classes live in the default package, which JMH does not allow for benchmark classes and which
+ * cannot be imported from a named package. The factory is therefore implemented in the default package
+ * and loaded by name once per trial; the measured calls go straight through the Scenario interface.
+ */
+public interface ScenarioFactory {
+
+    /**
+     * The name of the default package class implementing the factory.
+     */
+    String IMPLEMENTATION = "BenchmarkScenarios";
+
+    /**
+     * Creates a scenario.
+     *
+     * @param name        the name of the operation to measure
+     * @param collidables the number of collidables on the board, including the frame
+     * @param balls       the number of balls on the board
+     * @return the scenario
+     */
+    default Scenario create(String name, int collidables, int balls) {
+        return create(name, collidables, balls, "grid");
+    }
+
+    /**
+     * Creates a scenario whose collidables are indexed by the given broad phase.
+     *
+     * @param name        the name of the operation to measure
+     * @param collidables the number of collidables on the board, including the frame
+     * @param balls       the number of balls on the board
+     * @param broadPhase  "grid" for a UniformGrid or "tree" for an AabbTree
+     * @return the scenario
+     */
+    Scenario create(String name, int collidables, int balls, String broadPhase);
+
+    /**
+     * Loads the factory implementation.
+     *
+     * @return the factory
+     */
+    static ScenarioFactory load() {
+        try {
+            return (ScenarioFactory) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot load " + IMPLEMENTATION, e);
+        }
+    }
+}
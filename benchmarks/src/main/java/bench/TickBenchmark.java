@@ -0,0 +1,60 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full simulation tick, SpriteCollection.notifyAllTimePassed, over generated boards,
+ * with the balls casting their trajectory lines or swept with continuous collision detection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"100", "10000"})
+    private int collidables;
+
+    @Param({"2", "100"})
+    private int balls;
+
+    @Param({"line", "continuous"})
+    private String collision;
+
+    private Scenario scenario;
+
+    /**
+     * Builds the board with its blocks and balls.
+     * It is rebuilt for every iteration so the balls do not drift into a different part of the board.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String name = collision.equals("continuous") ? "notifyAllTimePassedContinuous" : "notifyAllTimePassed";
+        scenario = ScenarioFactory.load().create(name, collidables, balls);
+    }
+
+    /**
+     * Runs one tick of every sprite on the board.
+     *
+     * @return the sprites
+     */
+    @Benchmark
+    public Object tick() {
+        return scenario.run();
+    }
+}